@@ -0,0 +1,93 @@
+package be.codewriter.dmx512.benchmark;
+
+import be.codewriter.dmx512.controller.ip.packet.ArtNetDMXFrame;
+import be.codewriter.dmx512.controller.ip.packet.ArtNetPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNFrame;
+import be.codewriter.dmx512.controller.ip.packet.SACNPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNSource;
+import be.codewriter.dmx512.controller.serial.builder.EnttecDMXUSBProBuilder;
+import be.codewriter.dmx512.controller.serial.builder.EnttecDMXUSBProEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of a universe into the packets of the different protocols,
+ * comparing the allocating static builders with the reusable frames.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PacketEncodingBenchmark {
+
+    @Param({"24", "512"})
+    private int channels;
+
+    private byte[] data;
+    private ArtNetDMXFrame artNetFrame;
+    private SACNSource sacnSource;
+    private SACNFrame sacnFrame;
+    private EnttecDMXUSBProEncoder enttecEncoder;
+
+    @Setup
+    public void setup() {
+        data = new byte[channels];
+        ThreadLocalRandom.current().nextBytes(data);
+        artNetFrame = new ArtNetDMXFrame(0);
+        sacnSource = new SACNSource();
+        sacnFrame = sacnSource.createFrame(1, SACNPacket.DEFAULT_PRIORITY, false);
+        enttecEncoder = new EnttecDMXUSBProEncoder();
+    }
+
+    @Benchmark
+    public byte[] artNetStatic() {
+        return ArtNetPacket.createArtNetDMXPacket(data, 0);
+    }
+
+    @Benchmark
+    public ArtNetDMXFrame artNetFrame() {
+        artNetFrame.update(data, channels);
+        return artNetFrame;
+    }
+
+    @Benchmark
+    public byte[] sacnStatic() {
+        return SACNPacket.createSACNPacket(sacnSource, data, 1, SACNPacket.DEFAULT_PRIORITY);
+    }
+
+    @Benchmark
+    public SACNFrame sacnFrame() {
+        sacnSource.update(sacnFrame, data, channels);
+        return sacnFrame;
+    }
+
+    @Benchmark
+    public byte[] enttecStatic() throws IOException {
+        return EnttecDMXUSBProBuilder.createEnttecDMXPacket(data);
+    }
+
+    @Benchmark
+    public int enttecEncoder() {
+        return enttecEncoder.encode(data, channels);
+    }
+
+    @Benchmark
+    public int enttecEncoderRaw() {
+        return enttecEncoder.encodeRaw(data, channels);
+    }
+}
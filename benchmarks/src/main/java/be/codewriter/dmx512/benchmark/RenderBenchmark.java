@@ -0,0 +1,99 @@
+package be.codewriter.dmx512.benchmark;
+
+import be.codewriter.dmx512.controller.ip.DMXIPController;
+import be.codewriter.dmx512.controller.ip.IPProtocol;
+import be.codewriter.dmx512.controller.ip.IPTransport;
+import be.codewriter.dmx512.controller.ip.packet.SACNSource;
+import be.codewriter.dmx512.model.DMXClient;
+import be.codewriter.dmx512.model.DMXUniverse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering universes through a {@link DMXIPController} to a receiving socket on the loopback interface,
+ * which includes encoding, the system call and the copies of the data.
+ * The receiving socket is never read, packets that don't fit in its buffer are dropped by the kernel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    @Param({"ARTNET", "SACN"})
+    private IPProtocol protocol;
+
+    @Param({"DATAGRAM_SOCKET", "DATAGRAM_CHANNEL"})
+    private IPTransport transport;
+
+    private DatagramSocket receiver;
+    private DMXIPController controller;
+    private DMXUniverse universe;
+    private List<DMXUniverse> universes;
+    private DMXClient client;
+    private byte value;
+
+    @Setup(Level.Trial)
+    public void setup() throws SocketException {
+        var loopback = InetAddress.getLoopbackAddress();
+        receiver = new DatagramSocket(0, loopback);
+        controller = new DMXIPController(loopback, protocol, receiver.getLocalPort(), new SACNSource(), transport);
+        if (!controller.isConnected()) {
+            throw new IllegalStateException("Could not connect to the loopback receiver");
+        }
+        universes = new ArrayList<>();
+        for (var id = 1; id <= 4; id++) {
+            universes.add(createUniverse(id));
+        }
+        universe = universes.getFirst();
+        client = universe.getClients().getFirst();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        controller.close();
+        receiver.close();
+    }
+
+    @Benchmark
+    public void renderUniverse() {
+        client.setValue(0, value++);
+        controller.render(universe);
+    }
+
+    @Benchmark
+    public void renderData() {
+        controller.render(universe.getId(), universe.getData());
+    }
+
+    @Benchmark
+    public void renderBatch() {
+        client.setValue(0, value++);
+        controller.render(universes);
+    }
+
+    private static DMXUniverse createUniverse(int id) {
+        // A single client covering the full universe, so every packet contains 512 slots
+        return new DMXUniverse(id, new DMXClient(1, DMXUniverse.MAX_CHANNELS));
+    }
+}
@@ -0,0 +1,103 @@
+package be.codewriter.dmx512.benchmark;
+
+import be.codewriter.dmx512.model.DMXChannel;
+import be.codewriter.dmx512.model.DMXChannelGroup;
+import be.codewriter.dmx512.model.DMXClient;
+import be.codewriter.dmx512.model.DMXUniverse;
+import be.codewriter.dmx512.ofl.model.Fixture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembly of a full universe of fixtures and the lookups by channel name,
+ * which run for every change in a show.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UniverseBenchmark {
+
+    private static final List<String> CHANNELS = List.of(
+            "Pan", "Pan fine", "Tilt", "Tilt fine", "Dimmer", "Shutter / Strobe",
+            "Red", "Green", "Blue", "White", "Color Wheel", "Gobo Wheel",
+            "Gobo Rotation", "Prism", "Focus", "Zoom");
+
+    private be.codewriter.dmx512.ofl.model.Mode mode;
+    private Fixture fixture;
+    private DMXUniverse universe;
+    private DMXClient client;
+    private DMXChannel channel;
+    private DMXChannelGroup group;
+    private byte value;
+
+    @Setup
+    public void setup() {
+        mode = new be.codewriter.dmx512.ofl.model.Mode("16-channel", "16ch", CHANNELS);
+        fixture = new Fixture("Moving head", List.of("Moving Head"), null, null, null, null, null, List.of(mode));
+        var clients = new ArrayList<DMXClient>();
+        // Fixtures can be patched up to address 255
+        for (var address = 1; address <= 255; address += CHANNELS.size()) {
+            clients.add(new DMXClient(address, fixture, mode));
+        }
+        universe = new DMXUniverse(1, clients);
+        client = clients.get(clients.size() / 2);
+        channel = client.channel("Color Wheel");
+        group = universe.group(fixture, "Dimmer");
+    }
+
+    @Benchmark
+    public int modeChannelIndex() {
+        return mode.getChannelIndex("Shutter / Strobe");
+    }
+
+    @Benchmark
+    public void clientSetValueByName() {
+        client.setValue("Color Wheel", value++);
+    }
+
+    @Benchmark
+    public void channelHandleSetValue() {
+        channel.setValue(value++);
+    }
+
+    @Benchmark
+    public void universeUpdate() {
+        universe.update("Dimmer", value++);
+    }
+
+    @Benchmark
+    public void universeUpdateFixtures() {
+        universe.updateFixtures(fixture, "Dimmer", value++);
+    }
+
+    @Benchmark
+    public void groupSetValue() {
+        group.setValue(value++);
+    }
+
+    @Benchmark
+    public byte[] universeGetData() {
+        return universe.getData();
+    }
+
+    @Benchmark
+    public byte[] universeSnapshot() {
+        channel.setValue(value++);
+        return universe.snapshot();
+    }
+}
@@ -5,6 +5,7 @@ import be.codewriter.dmx512.controller.change.DMXStatusChangeMessage;
 import be.codewriter.dmx512.model.DMXUniverse;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -60,6 +61,19 @@ public interface DMXController {
      */
     void render(int id, byte[] data);
 
+    /**
+     * Render the given universes on the controller as one frame.
+     * Controllers which can send multiple universes override this to encode all of them first and send them
+     * together, by default each universe is rendered separately.
+     *
+     * @param universes collection of {@link DMXUniverse}
+     */
+    default void render(Collection<DMXUniverse> universes) {
+        for (DMXUniverse universe : universes) {
+            render(universe);
+        }
+    }
+
     /**
      * Close the connection
      */
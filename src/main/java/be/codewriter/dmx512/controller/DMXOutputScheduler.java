@@ -0,0 +1,280 @@
+package be.codewriter.dmx512.controller;
+
+import be.codewriter.dmx512.model.DMXUniverse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Scheduler which refreshes the registered universes on their controller at a fixed frame rate.
+ * A universe which changed since the previous frame, based on its {@link DMXUniverse#getVersion()},
+ * is sent on the next tick. An unchanged universe is only resent at the keep-alive interval.
+ * A universe is only marked as sent after it was rendered on a connected controller,
+ * so changes made while disconnected are sent on the first tick after reconnecting.
+ * <p>
+ * Ticks are calculated from the start time, so the frame rate doesn't drift when sending takes longer.
+ * When a tick is missed completely, it is skipped instead of sending a burst of frames to catch up.
+ */
+public class DMXOutputScheduler {
+    /**
+     * Default frame rate, the maximum refresh rate of a full DMX512 universe
+     */
+    public static final double DEFAULT_FRAME_RATE = 44;
+    /**
+     * Default interval to resend unchanged universes
+     */
+    public static final Duration DEFAULT_KEEP_ALIVE_INTERVAL = Duration.ofSeconds(1);
+    private static final Logger LOGGER = LoggerFactory.getLogger(DMXOutputScheduler.class.getName());
+
+    private final long frameIntervalNanos;
+    private final long keepAliveIntervalNanos;
+    private final Object registrationLock = new Object();
+    private volatile List<Output> outputs = List.of();
+    private volatile boolean running = false;
+    private Thread schedulerThread;
+
+    /**
+     * Constructor for a scheduler with the default frame rate and keep-alive interval
+     */
+    public DMXOutputScheduler() {
+        this(DEFAULT_FRAME_RATE, DEFAULT_KEEP_ALIVE_INTERVAL);
+    }
+
+    /**
+     * Constructor for a scheduler with the given frame rate and keep-alive interval
+     *
+     * @param frameRate         frames per second, e.g. 44 or 30
+     * @param keepAliveInterval interval to resend unchanged universes
+     */
+    public DMXOutputScheduler(double frameRate, Duration keepAliveInterval) {
+        if (frameRate <= 0 || frameRate > 1_000) {
+            throw new IllegalArgumentException("Frame rate must be between 0 and 1000");
+        }
+        if (keepAliveInterval == null || keepAliveInterval.isNegative() || keepAliveInterval.isZero()) {
+            throw new IllegalArgumentException("Keep-alive interval must be defined and positive");
+        }
+        this.frameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / frameRate);
+        this.keepAliveIntervalNanos = keepAliveInterval.toNanos();
+    }
+
+    /**
+     * Register a universe to be refreshed on the given controller
+     *
+     * @param controller {@link DMXController}
+     * @param universe   {@link DMXUniverse}
+     */
+    public void register(DMXController controller, DMXUniverse universe) {
+        synchronized (registrationLock) {
+            var updated = new ArrayList<Output>(outputs.size() + 1);
+            Output target = null;
+            for (Output output : outputs) {
+                if (output.controller == controller) {
+                    target = output.with(universe);
+                    updated.add(target);
+                } else {
+                    updated.add(output);
+                }
+            }
+            if (target == null) {
+                updated.add(new Output(controller, new Registration[]{new Registration(universe)}));
+            }
+            outputs = List.copyOf(updated);
+        }
+    }
+
+    /**
+     * Stop refreshing a universe on the given controller
+     *
+     * @param controller {@link DMXController}
+     * @param universe   {@link DMXUniverse}
+     */
+    public void unregister(DMXController controller, DMXUniverse universe) {
+        synchronized (registrationLock) {
+            var updated = new ArrayList<Output>(outputs.size());
+            for (Output output : outputs) {
+                var remaining = output.controller == controller ? output.without(universe) : output;
+                if (remaining.registrations.length > 0) {
+                    updated.add(remaining);
+                }
+            }
+            outputs = List.copyOf(updated);
+        }
+    }
+
+    /**
+     * Start the scheduler thread
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        schedulerThread = new Thread(this::schedulerLoop, "DMX-Output-Scheduler");
+        schedulerThread.setDaemon(true);
+        schedulerThread.start();
+        LOGGER.info("Started DMX output scheduler with a frame interval of {}ns", frameIntervalNanos);
+    }
+
+    /**
+     * Stop the scheduler thread
+     */
+    public synchronized void stop() {
+        running = false;
+        if (schedulerThread != null) {
+            LockSupport.unpark(schedulerThread);
+            try {
+                schedulerThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            schedulerThread = null;
+        }
+        LOGGER.info("Stopped DMX output scheduler");
+    }
+
+    /**
+     * Check if the scheduler is running
+     *
+     * @return is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Get the interval between two frames
+     *
+     * @return interval in nanoseconds
+     */
+    public long getFrameIntervalNanos() {
+        return frameIntervalNanos;
+    }
+
+    private void schedulerLoop() {
+        long startTime = System.nanoTime();
+        long tick = 0;
+
+        while (running) {
+            long deadline = startTime + tick * frameIntervalNanos;
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0 && running) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            if (!running) {
+                break;
+            }
+
+            send(System.nanoTime());
+
+            // Skip the ticks which were missed completely, instead of sending a burst of frames
+            long next = (System.nanoTime() - startTime) / frameIntervalNanos + 1;
+            tick = Math.max(tick + 1, next);
+        }
+
+        LOGGER.debug("DMX output scheduler loop ended");
+    }
+
+    /**
+     * Send the due universes of all controllers, as done on every tick.
+     * Package-private, so the timing can be tested with a given time instead of the scheduler thread.
+     *
+     * @param now current time in nanoseconds
+     */
+    void send(long now) {
+        for (Output output : outputs) {
+            try {
+                output.send(now, keepAliveIntervalNanos);
+            } catch (Exception e) {
+                LOGGER.error("Error while sending frame to {}: {}", output.controller.getAddress(), e.getMessage());
+            }
+        }
+    }
+
+    private static final class Registration {
+        private final DMXUniverse universe;
+        private long lastVersion = -1;
+        private long pendingVersion;
+        private long lastSentNanos;
+
+        private Registration(DMXUniverse universe) {
+            this.universe = universe;
+        }
+
+        private boolean isDue(long now, long keepAliveIntervalNanos) {
+            if (universe.getLength() == 0) {
+                return false;
+            }
+            // Only committed by sent() once the render succeeded
+            pendingVersion = universe.getVersion();
+            return pendingVersion != lastVersion || now - lastSentNanos >= keepAliveIntervalNanos;
+        }
+
+        private void sent(long now) {
+            lastVersion = pendingVersion;
+            lastSentNanos = now;
+        }
+    }
+
+    private static final class Output {
+        private final DMXController controller;
+        private final Registration[] registrations;
+        private final List<DMXUniverse> due;
+        private final List<Registration> dueRegistrations;
+
+        private Output(DMXController controller, Registration[] registrations) {
+            this.controller = controller;
+            this.registrations = registrations;
+            this.due = new ArrayList<>(registrations.length);
+            this.dueRegistrations = new ArrayList<>(registrations.length);
+        }
+
+        private Output with(DMXUniverse universe) {
+            for (Registration registration : registrations) {
+                if (registration.universe == universe) {
+                    return this;
+                }
+            }
+            var updated = Arrays.copyOf(registrations, registrations.length + 1);
+            updated[registrations.length] = new Registration(universe);
+            return new Output(controller, updated);
+        }
+
+        private Output without(DMXUniverse universe) {
+            return new Output(controller, Arrays.stream(registrations)
+                    .filter(r -> r.universe != universe)
+                    .toArray(Registration[]::new));
+        }
+
+        private void send(long now, long keepAliveIntervalNanos) {
+            if (!controller.isConnected()) {
+                return;
+            }
+            due.clear();
+            dueRegistrations.clear();
+            for (Registration registration : registrations) {
+                if (registration.isDue(now, keepAliveIntervalNanos)) {
+                    due.add(registration.universe);
+                    dueRegistrations.add(registration);
+                }
+            }
+            if (due.isEmpty()) {
+                return;
+            }
+            controller.render(due);
+            if (!controller.isConnected()) {
+                // A failed send disconnects the controller without throwing,
+                // the universes stay due and are sent again on the first tick after reconnecting
+                return;
+            }
+            for (Registration registration : dueRegistrations) {
+                registration.sent(now);
+            }
+        }
+    }
+}
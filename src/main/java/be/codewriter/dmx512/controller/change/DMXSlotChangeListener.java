@@ -0,0 +1,15 @@
+package be.codewriter.dmx512.controller.change;
+
+/**
+ * Interface to be used by all classes that want to be informed of changed slots in received DMX data
+ */
+@FunctionalInterface
+public interface DMXSlotChangeListener {
+    /**
+     * Notify the changed slots of a received universe.
+     * The image is reused for the next received frame, so it must not be kept after this call.
+     *
+     * @param image {@link DMXUniverseImage} with the received data and the changed slot ranges
+     */
+    void notify(DMXUniverseImage image);
+}
@@ -0,0 +1,32 @@
+package be.codewriter.dmx512.controller.change;
+
+/**
+ * Interface to be used by all classes that want to receive every DMX frame of a universe with its source,
+ * e.g. to merge multiple sources of the same universe
+ */
+@FunctionalInterface
+public interface DMXSourceFrameListener {
+    /**
+     * Notify a received frame, also when it didn't change since the previous frame of the source.
+     * The data array is reused for the next received frame, so it must not be kept after this call.
+     *
+     * @param universe port-address for ArtNet, or universe for sACN
+     * @param sourceId number identifying the source, assigned per CID for sACN or per sender address for ArtNet
+     * @param priority priority of the source, from the packet for sACN or the default priority for ArtNet
+     * @param data     array containing the received DMX values
+     * @param offset   offset of the first DMX value in the data
+     * @param length   number of DMX values
+     */
+    void notify(int universe, int sourceId, int priority, byte[] data, int offset, int length);
+
+    /**
+     * Notify that a source stopped sending a universe, e.g. when a sACN source sends a stream terminated packet.
+     * By default nothing is done, and the source is only lost when it times out.
+     *
+     * @param universe port-address for ArtNet, or universe for sACN
+     * @param sourceId number identifying the source, as used in {@link #notify(int, int, int, byte[], int, int)}
+     */
+    default void removeSource(int universe, int sourceId) {
+        // Nothing to do by default
+    }
+}
@@ -0,0 +1,167 @@
+package be.codewriter.dmx512.controller.change;
+
+/**
+ * Persistent image of a received universe.
+ * Each received frame is compared with the image and copied into it in place, the slots which changed are kept as
+ * ranges, so a listener only needs to handle the changed slots, and receiving a frame doesn't allocate any memory.
+ * <p>
+ * An image is not thread-safe, it's updated by the receiving thread, and the data and ranges are only valid
+ * while a {@link DMXSlotChangeListener} is being notified.
+ */
+public class DMXUniverseImage {
+    /**
+     * Maximum number of slots in a universe
+     */
+    public static final int MAX_SLOTS = 512;
+
+    private final int universe;
+    private final byte[] data = new byte[MAX_SLOTS];
+    // Changed slots are separated by at least one unchanged slot, so there are at most 256 ranges
+    private final int[] rangeStarts = new int[MAX_SLOTS / 2];
+    private final int[] rangeEnds = new int[MAX_SLOTS / 2];
+    private int length;
+    private int rangeCount;
+    private long frameCount;
+
+    /**
+     * Constructor for an empty image of the given universe
+     *
+     * @param universe universe number, the port-address for ArtNet or the universe for sACN
+     */
+    public DMXUniverseImage(int universe) {
+        this.universe = universe;
+    }
+
+    /**
+     * Update the image with a received frame, and keep the ranges of the slots which changed.
+     * When the frame is shorter than the image, the remaining slots are cleared and reported as changed.
+     *
+     * @param source array containing the received DMX values
+     * @param offset offset of the first DMX value in the source
+     * @param length number of DMX values (0-512)
+     * @return true if any slot changed
+     */
+    public boolean update(byte[] source, int offset, int length) {
+        if (length < 0 || length > MAX_SLOTS || offset < 0 || offset + length > source.length) {
+            throw new IllegalArgumentException("Invalid DMX data range");
+        }
+        rangeCount = 0;
+        frameCount++;
+        var start = -1;
+        for (var i = 0; i < length; i++) {
+            var value = source[offset + i];
+            if (data[i] != value) {
+                data[i] = value;
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                addRange(start, i);
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            addRange(start, length);
+        }
+        if (length < this.length) {
+            // Slots which are no longer received are cleared
+            for (var i = length; i < this.length; i++) {
+                data[i] = 0;
+            }
+            addRange(length, this.length);
+        }
+        this.length = length;
+        return rangeCount > 0;
+    }
+
+    private void addRange(int start, int end) {
+        if (rangeCount > 0 && rangeEnds[rangeCount - 1] == start) {
+            rangeEnds[rangeCount - 1] = end;
+            return;
+        }
+        rangeStarts[rangeCount] = start;
+        rangeEnds[rangeCount] = end;
+        rangeCount++;
+    }
+
+    /**
+     * Get the universe number
+     *
+     * @return universe
+     */
+    public int getUniverse() {
+        return universe;
+    }
+
+    /**
+     * Get the current DMX values, this array is reused for every received frame
+     *
+     * @return DMX values, only the first {@link #getLength()} values are received
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Get the value of a slot
+     *
+     * @param slot slot index (0-511)
+     * @return value
+     */
+    public byte getValue(int slot) {
+        return data[slot];
+    }
+
+    /**
+     * Get the number of DMX values in the last received frame
+     *
+     * @return length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Get the number of received frames, including the ones without changes
+     *
+     * @return number of frames
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Get the number of changed slot ranges in the last received frame
+     *
+     * @return number of ranges
+     */
+    public int getChangedRangeCount() {
+        return rangeCount;
+    }
+
+    /**
+     * Get the first slot of a changed range
+     *
+     * @param range range index, smaller than {@link #getChangedRangeCount()}
+     * @return first changed slot (inclusive)
+     */
+    public int getChangedRangeStart(int range) {
+        if (range < 0 || range >= rangeCount) {
+            throw new IndexOutOfBoundsException("Range " + range + " out of " + rangeCount);
+        }
+        return rangeStarts[range];
+    }
+
+    /**
+     * Get the end of a changed range
+     *
+     * @param range range index, smaller than {@link #getChangedRangeCount()}
+     * @return slot after the last changed slot (exclusive)
+     */
+    public int getChangedRangeEnd(int range) {
+        if (range < 0 || range >= rangeCount) {
+            throw new IndexOutOfBoundsException("Range " + range + " out of " + rangeCount);
+        }
+        return rangeEnds[range];
+    }
+}
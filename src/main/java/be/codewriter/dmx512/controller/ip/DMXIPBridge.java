@@ -0,0 +1,375 @@
+package be.codewriter.dmx512.controller.ip;
+
+import be.codewriter.dmx512.controller.ip.packet.ArtNetDMXFrame;
+import be.codewriter.dmx512.controller.ip.packet.ArtNetPacket;
+import be.codewriter.dmx512.controller.ip.packet.DMXPacketFrame;
+import be.codewriter.dmx512.controller.ip.packet.SACNFrame;
+import be.codewriter.dmx512.controller.ip.packet.SACNPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.MembershipKey;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static be.codewriter.dmx512.controller.ip.packet.ArtNetPacket.ART_NET_PORT;
+import static be.codewriter.dmx512.controller.ip.packet.SACNPacket.SACN_PORT;
+
+/**
+ * Bridge which receives DMX data with one IP protocol and sends it with the other, ArtNet to sACN or sACN to ArtNet,
+ * with a mapping from the received universes to the sent universes.
+ * <p>
+ * Packets are received in a direct buffer, and the DMX data is copied from it into the preallocated direct frame
+ * of the mapped universe, so only the header of the frame is patched and no memory is allocated per packet.
+ * Received universes without a mapping are ignored, as are sACN preview and stream terminated packets.
+ * When sACN is sent to a multicast address, every universe is sent to its own multicast group.
+ * When sACN is received, the multicast group of every mapped universe is joined.
+ */
+public class DMXIPBridge implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DMXIPBridge.class.getName());
+
+    private final IPProtocol inputProtocol;
+    private final InetAddress bindAddress;
+    private final int inputPort;
+    private final InetAddress outputAddress;
+    private final int outputPort;
+    private final SACNSource sacnSource;
+    private final NetworkInterface networkInterface;
+    private final boolean multicast;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(1024);
+    private final Object routeLock = new Object();
+    private final Map<Integer, MembershipKey> memberships = new HashMap<>();
+    private volatile Route[] routes = new Route[16];
+    private volatile boolean running = false;
+    private volatile long forwardedPackets;
+    private DatagramChannel inputChannel;
+    private DatagramChannel outputChannel;
+    private Thread bridgeThread;
+
+    /**
+     * Constructor for a bridge receiving the given protocol on its default port on all interfaces,
+     * and sending the other protocol to the given address on its default port.
+     * sACN is received on the multicast groups of the mapped universes on the default multicast interface.
+     *
+     * @param inputProtocol {@link IPProtocol} to receive, the other protocol is sent
+     * @param outputAddress address to send to, a multicast address to send sACN to the group of each universe
+     */
+    public DMXIPBridge(IPProtocol inputProtocol, InetAddress outputAddress) {
+        this(inputProtocol, null, inputProtocol == IPProtocol.ARTNET ? ART_NET_PORT : SACN_PORT,
+                outputAddress, inputProtocol == IPProtocol.ARTNET ? SACN_PORT : ART_NET_PORT, new SACNSource(),
+                inputProtocol == IPProtocol.SACN ? DMXIPReceiver.getDefaultMulticastInterface() : null);
+    }
+
+    /**
+     * Constructor for a bridge with all settings.
+     * Multicast sACN packets are only received when bound to all interfaces (null).
+     *
+     * @param inputProtocol    {@link IPProtocol} to receive, the other protocol is sent
+     * @param bindAddress      local address to receive on, or null for all interfaces
+     * @param inputPort        port to receive on, 0 for any free port
+     * @param outputAddress    address to send to, a multicast address to send sACN to the group of each universe
+     * @param outputPort       port to send to
+     * @param sacnSource       {@link SACNSource} used when sending sACN
+     * @param networkInterface {@link NetworkInterface} to send multicast packets on, or null for the default,
+     *                         when receiving sACN the interface to join the multicast groups on,
+     *                         or null to only receive unicast
+     */
+    public DMXIPBridge(IPProtocol inputProtocol, InetAddress bindAddress, int inputPort, InetAddress outputAddress,
+                       int outputPort, SACNSource sacnSource, NetworkInterface networkInterface) {
+        if (inputProtocol == null || outputAddress == null || sacnSource == null) {
+            throw new IllegalArgumentException("Input protocol, output address and sACN source must be defined");
+        }
+        if (inputPort < 0 || inputPort > 65535 || outputPort < 1 || outputPort > 65535) {
+            throw new IllegalArgumentException("Invalid port");
+        }
+        this.inputProtocol = inputProtocol;
+        this.bindAddress = bindAddress;
+        this.inputPort = inputPort;
+        this.outputAddress = outputAddress;
+        this.outputPort = outputPort;
+        this.sacnSource = sacnSource;
+        this.networkInterface = networkInterface;
+        this.multicast = inputProtocol == IPProtocol.ARTNET && outputAddress.isMulticastAddress();
+    }
+
+    /**
+     * Map a received universe to a sent universe
+     *
+     * @param inputUniverse  received universe, the port-address for ArtNet (0-32767) or the universe for sACN (1-63999)
+     * @param outputUniverse sent universe, the port-address for ArtNet (0-32767) or the universe for sACN (1-63999)
+     */
+    public void map(int inputUniverse, int outputUniverse) {
+        if (inputProtocol == IPProtocol.ARTNET ? inputUniverse < 0 || inputUniverse > 0x7FFF
+                : inputUniverse < 1 || inputUniverse > 63999) {
+            throw new IllegalArgumentException("Invalid input universe " + inputUniverse);
+        }
+        var route = new Route(createFrame(outputUniverse), getTarget(outputUniverse));
+        synchronized (routeLock) {
+            var current = routes;
+            var updated = inputUniverse < current.length ? current.clone()
+                    : Arrays.copyOf(current, Math.max(inputUniverse + 1, current.length * 2));
+            updated[inputUniverse] = route;
+            routes = updated;
+            joinGroup(inputUniverse);
+        }
+    }
+
+    /**
+     * Map a range of received universes to a range of sent universes
+     *
+     * @param firstInputUniverse  first received universe
+     * @param firstOutputUniverse first sent universe
+     * @param count               number of universes
+     */
+    public void map(int firstInputUniverse, int firstOutputUniverse, int count) {
+        for (var i = 0; i < count; i++) {
+            map(firstInputUniverse + i, firstOutputUniverse + i);
+        }
+    }
+
+    /**
+     * Remove the mapping of a received universe, so it's ignored again
+     *
+     * @param inputUniverse received universe
+     */
+    public void unmap(int inputUniverse) {
+        synchronized (routeLock) {
+            var current = routes;
+            if (inputUniverse >= 0 && inputUniverse < current.length && current[inputUniverse] != null) {
+                var updated = current.clone();
+                updated[inputUniverse] = null;
+                routes = updated;
+                leaveGroup(inputUniverse);
+            }
+        }
+    }
+
+    /**
+     * Open the channels and start the bridge thread
+     *
+     * @throws IOException when the input port can't be bound
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        inputChannel = DatagramChannel.open();
+        try {
+            inputChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            inputChannel.bind(new InetSocketAddress(bindAddress, inputPort));
+            outputChannel = DatagramChannel.open();
+            // ArtNet is often sent to a broadcast address, which a channel only allows with this option
+            outputChannel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+            if (multicast && networkInterface != null) {
+                outputChannel.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+            }
+        } catch (IOException e) {
+            closeChannels();
+            throw e;
+        }
+        synchronized (routeLock) {
+            var current = routes;
+            for (var universe = 0; universe < current.length; universe++) {
+                if (current[universe] != null) {
+                    joinGroup(universe);
+                }
+            }
+        }
+        running = true;
+        bridgeThread = new Thread(this::bridgeLoop, "DMX-IP-Bridge");
+        bridgeThread.setDaemon(true);
+        bridgeThread.start();
+        LOGGER.info("Started DMX IP bridge from {} on port {} to {}", inputProtocol, getInputPort(), outputAddress);
+    }
+
+    /**
+     * Stop the bridge thread and close the channels
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // Closing the channel interrupts the blocking receive, and leaves the multicast groups
+        closeChannels();
+        synchronized (routeLock) {
+            memberships.clear();
+        }
+        try {
+            bridgeThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        bridgeThread = null;
+        LOGGER.info("Stopped DMX IP bridge");
+    }
+
+    /**
+     * Check if the bridge is running
+     *
+     * @return is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Get the local input port, useful when bound to any free port
+     *
+     * @return port, or -1 if the bridge isn't started
+     */
+    public int getInputPort() {
+        try {
+            if (inputChannel != null && inputChannel.getLocalAddress() instanceof InetSocketAddress local) {
+                return local.getPort();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to get local port: {}", e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Check if the multicast group of a received sACN universe is joined
+     *
+     * @param inputUniverse received universe
+     * @return true when joined
+     */
+    public boolean isJoined(int inputUniverse) {
+        synchronized (routeLock) {
+            return memberships.containsKey(inputUniverse);
+        }
+    }
+
+    /**
+     * Get the number of forwarded packets
+     *
+     * @return number of packets
+     */
+    public long getForwardedPackets() {
+        return forwardedPackets;
+    }
+
+    private void bridgeLoop() {
+        while (running) {
+            try {
+                receiveBuffer.clear();
+                inputChannel.receive(receiveBuffer);
+                forward(receiveBuffer.position());
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.error("Error while bridging: {}", e.getMessage());
+                }
+            } catch (Exception e) {
+                LOGGER.error("Unexpected error: {}", e.getMessage());
+            }
+        }
+        LOGGER.debug("DMX IP bridge loop ended");
+    }
+
+    private void forward(int length) throws IOException {
+        int universe;
+        int dmxOffset;
+        int dmxLength;
+        if (inputProtocol == IPProtocol.ARTNET && ArtNetPacket.isArtDMXPacket(receiveBuffer, length)) {
+            universe = ArtNetPacket.getPortAddress(receiveBuffer);
+            dmxOffset = ArtNetPacket.HEADER_LENGTH;
+            dmxLength = ArtNetPacket.getDmxDataLength(receiveBuffer, length);
+        } else if (inputProtocol == IPProtocol.SACN && SACNPacket.isSACNDataPacket(receiveBuffer, length)) {
+            if ((SACNPacket.getOptions(receiveBuffer)
+                    & (SACNPacket.OPTION_PREVIEW_DATA | SACNPacket.OPTION_STREAM_TERMINATED)) != 0) {
+                // Preview data isn't meant for live output, and a terminated stream has no valid data
+                return;
+            }
+            universe = SACNPacket.getUniverse(receiveBuffer);
+            dmxOffset = SACNPacket.HEADER_LENGTH;
+            dmxLength = SACNPacket.getDmxDataLength(receiveBuffer, length);
+        } else {
+            return;
+        }
+
+        var current = routes;
+        var route = universe < current.length ? current[universe] : null;
+        if (route == null || dmxLength == 0) {
+            return;
+        }
+        if (route.frame instanceof SACNFrame sacnFrame) {
+            sacnSource.update(sacnFrame, receiveBuffer, dmxOffset, dmxLength);
+        } else {
+            ((ArtNetDMXFrame) route.frame).update(receiveBuffer, dmxOffset, dmxLength);
+        }
+        // Counted before sending, so the count is up to date when the packet arrives
+        forwardedPackets++;
+        outputChannel.send(route.frame.getBuffer(), route.target);
+    }
+
+    /**
+     * Join the multicast group of a received sACN universe, must be called while holding the route lock
+     */
+    private void joinGroup(int inputUniverse) {
+        if (inputProtocol != IPProtocol.SACN || networkInterface == null || inputChannel == null
+                || !inputChannel.isOpen() || memberships.containsKey(inputUniverse)) {
+            return;
+        }
+        try {
+            memberships.put(inputUniverse, inputChannel.join(SACNPacket.getMulticastAddress(inputUniverse), networkInterface));
+            LOGGER.debug("Joined multicast group of universe {} on {}", inputUniverse, networkInterface.getName());
+        } catch (IOException e) {
+            LOGGER.warn("Failed to join multicast group of universe {}: {}", inputUniverse, e.getMessage());
+        }
+    }
+
+    /**
+     * Leave the multicast group of a received sACN universe, must be called while holding the route lock
+     */
+    private void leaveGroup(int inputUniverse) {
+        var key = memberships.remove(inputUniverse);
+        if (key != null) {
+            key.drop();
+            LOGGER.debug("Left multicast group of universe {}", inputUniverse);
+        }
+    }
+
+    private DMXPacketFrame createFrame(int outputUniverse) {
+        if (inputProtocol == IPProtocol.ARTNET) {
+            return sacnSource.createFrame(outputUniverse, SACNPacket.DEFAULT_PRIORITY, true);
+        }
+        if (outputUniverse < 0 || outputUniverse > 0x7FFF) {
+            throw new IllegalArgumentException("ArtNet port-address must be 0-32767");
+        }
+        // Port-address: Net in bits 8-14, SubNet in bits 4-7 and Universe in bits 0-3
+        return new ArtNetDMXFrame(outputUniverse & 0x0F, (outputUniverse >> 4) & 0x0F, outputUniverse >> 8, true);
+    }
+
+    private InetSocketAddress getTarget(int outputUniverse) {
+        return new InetSocketAddress(multicast ? SACNPacket.getMulticastAddress(outputUniverse) : outputAddress, outputPort);
+    }
+
+    private void closeChannels() {
+        for (var channel : new DatagramChannel[]{inputChannel, outputChannel}) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to close channel: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private record Route(DMXPacketFrame frame, InetSocketAddress target) {
+    }
+}
@@ -1,9 +1,15 @@
 package be.codewriter.dmx512.controller.ip;
 
 import be.codewriter.dmx512.controller.DMXController;
+import be.codewriter.dmx512.controller.change.DMXSlotChangeListener;
 import be.codewriter.dmx512.controller.change.DMXStatusChangeMessage;
+import be.codewriter.dmx512.controller.change.DMXUniverseImage;
+import be.codewriter.dmx512.controller.ip.packet.ArtNetDMXFrame;
 import be.codewriter.dmx512.controller.ip.packet.ArtNetPacket;
+import be.codewriter.dmx512.controller.ip.packet.DMXPacketFrame;
+import be.codewriter.dmx512.controller.ip.packet.SACNFrame;
 import be.codewriter.dmx512.controller.ip.packet.SACNPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNSource;
 import be.codewriter.dmx512.model.DMXUniverse;
 import be.codewriter.dmx512.tool.HexTool;
 import org.slf4j.Logger;
@@ -13,8 +19,15 @@ import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.PortUnreachableException;
 import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.util.Arrays;
+import java.util.Collection;
 
 import static be.codewriter.dmx512.controller.ip.packet.ArtNetPacket.ART_NET_PORT;
 import static be.codewriter.dmx512.controller.ip.packet.SACNPacket.SACN_PORT;
@@ -22,6 +35,10 @@ import static be.codewriter.dmx512.controller.ip.packet.SACNPacket.SACN_PORT;
 /**
  * DMX IP Controller.
  * Controls DMX lights over IP-to-DMX interface.
+ * <p>
+ * When the sACN protocol is used with a multicast address, e.g. {@link SACNPacket#getMulticastAddress(int)},
+ * every universe is sent to its own multicast group 239.255.hi.lo as defined by E1.31, instead of to one address.
+ * Receivers only get the universes they joined, and switches with IGMP snooping only forward those groups.
  */
 public class DMXIPController implements DMXController {
     private static final Logger LOGGER = LoggerFactory.getLogger(DMXIPController.class.getName());
@@ -30,11 +47,25 @@ public class DMXIPController implements DMXController {
     private final InetAddress address;
     private final IPProtocol protocol;
     private final int port;
+    private final SACNSource sacnSource;
+    private final IPTransport transport;
+    private final NetworkInterface networkInterface;
+    private final boolean multicast;
+    private InetSocketAddress[] multicastTargets = new InetSocketAddress[16];
+    private final ByteBuffer[] gatherBuffers = new ByteBuffer[2];
+    private final ArtNetDMXFrame[] artNetFrames = new ArtNetDMXFrame[16];
+    private SACNFrame[] sacnFrames = new SACNFrame[16];
+    private DMXPacketFrame[] batchFrames = new DMXPacketFrame[16];
+    private final DatagramPacket sendPacket;
     private boolean listening = true;
     private DatagramSocket socket;
+    private DatagramChannel channel;
     private boolean connected = false;
     private volatile boolean autoReconnect = true;
     private int reconnectAttempts = 0;
+    private volatile boolean deltaReceive = false;
+    private volatile DMXSlotChangeListener[] slotChangeListeners = new DMXSlotChangeListener[0];
+    private volatile DMXUniverseImage[] receivedUniverses = new DMXUniverseImage[16];
 
     /**
      * Constructor for an IP controller from an IP device, using the ArtNet protocol
@@ -72,9 +103,93 @@ public class DMXIPController implements DMXController {
      * @param port     port
      */
     public DMXIPController(InetAddress address, IPProtocol protocol, int port) {
+        this(address, protocol, port, new SACNSource());
+    }
+
+    /**
+     * Constructor for an IP controller with an IP address, using the sACN protocol with the given source.
+     * The same source can be shared by multiple controllers, so they use the same CID and sequence numbers.
+     *
+     * @param address    IP address
+     * @param sacnSource {@link SACNSource}
+     */
+    public DMXIPController(InetAddress address, SACNSource sacnSource) {
+        this(address, IPProtocol.SACN, SACN_PORT, sacnSource);
+    }
+
+    /**
+     * Constructor for an IP controller with an IP address, protocol, port, and the source used for sACN
+     *
+     * @param address    IP address
+     * @param protocol   {@link IPProtocol}
+     * @param port       port
+     * @param sacnSource {@link SACNSource}, only used for the sACN protocol
+     */
+    public DMXIPController(InetAddress address, IPProtocol protocol, int port, SACNSource sacnSource) {
+        this(address, protocol, port, sacnSource, IPTransport.DATAGRAM_SOCKET);
+    }
+
+    /**
+     * Constructor for an IP controller with an IP address and protocol, using the default port for the protocol,
+     * and the given transport
+     *
+     * @param address   IP address
+     * @param protocol  {@link IPProtocol}
+     * @param transport {@link IPTransport}
+     */
+    public DMXIPController(InetAddress address, IPProtocol protocol, IPTransport transport) {
+        this(address, protocol, (protocol == IPProtocol.ARTNET) ? ART_NET_PORT : SACN_PORT, new SACNSource(), transport);
+    }
+
+    /**
+     * Constructor for an IP controller with an IP address, protocol, port, the source used for sACN, and transport
+     *
+     * @param address    IP address
+     * @param protocol   {@link IPProtocol}
+     * @param port       port
+     * @param sacnSource {@link SACNSource}, only used for the sACN protocol
+     * @param transport  {@link IPTransport}
+     */
+    public DMXIPController(InetAddress address, IPProtocol protocol, int port, SACNSource sacnSource, IPTransport transport) {
+        this(address, protocol, port, sacnSource, transport, null);
+    }
+
+    /**
+     * Constructor for an IP controller sending sACN with multicast, every universe to its own multicast group
+     *
+     * @param sacnSource       {@link SACNSource}
+     * @param networkInterface {@link NetworkInterface} to send the multicast packets on, or null for the default
+     */
+    public DMXIPController(SACNSource sacnSource, NetworkInterface networkInterface) {
+        this(SACNPacket.getMulticastAddress(1), IPProtocol.SACN, SACN_PORT, sacnSource, IPTransport.DATAGRAM_CHANNEL, networkInterface);
+    }
+
+    /**
+     * Constructor for an IP controller with an IP address, protocol, port, the source used for sACN, transport,
+     * and the network interface for multicast.
+     * When the protocol is sACN and the address is a multicast address, every universe is sent to its own
+     * multicast group on the given port.
+     *
+     * @param address          IP address
+     * @param protocol         {@link IPProtocol}
+     * @param port             port
+     * @param sacnSource       {@link SACNSource}, only used for the sACN protocol
+     * @param transport        {@link IPTransport}
+     * @param networkInterface {@link NetworkInterface} to send multicast packets on, or null for the default
+     */
+    public DMXIPController(InetAddress address, IPProtocol protocol, int port, SACNSource sacnSource, IPTransport transport,
+                           NetworkInterface networkInterface) {
+        if (sacnSource == null) {
+            throw new IllegalArgumentException("sACN source must be defined");
+        }
         this.address = address;
         this.protocol = protocol;
         this.port = port;
+        this.sacnSource = sacnSource;
+        this.transport = transport;
+        this.networkInterface = networkInterface;
+        this.multicast = protocol == IPProtocol.SACN && address.isMulticastAddress();
+        this.sendPacket = new DatagramPacket(new byte[0], 0, address, port);
 
         connect();
     }
@@ -96,9 +211,9 @@ public class DMXIPController implements DMXController {
 
     @Override
     public boolean connect() {
-        LOGGER.debug("Connecting to DMX network at {}", address);
+        LOGGER.debug("Connecting to DMX network at {} with {}", address, transport);
         try {
-            this.socket = new DatagramSocket();
+            openTransport();
             this.connected = true;
             notifyListeners(DMXStatusChangeMessage.CONNECTED);
             startListening();
@@ -112,29 +227,148 @@ public class DMXIPController implements DMXController {
 
     @Override
     public synchronized void render(DMXUniverse universe) {
-        if (!connected || socket == null) {
+        if (!connected) {
             LOGGER.error("Not connected to DMX network, can't render data to the devices");
             return;
         }
-        render(universe.getId(), universe.getData());
+        sendFrame(encode(universe.getId(), universe.snapshot(), universe.getLength()));
     }
 
     @Override
     public synchronized void render(int universe, byte[] data) {
-        if (!connected || socket == null) {
+        if (!connected) {
+            LOGGER.error("Not connected to DMX network, can't render data to the devices");
+            return;
+        }
+        sendFrame(encode(universe, data, data.length));
+    }
+
+    /**
+     * Render the given universes as one frame: all packets are encoded first, and then sent in one loop
+     * while holding the lock once, so they leave the network interface as close together as possible.
+     * Each universe ID should only be included once, as the packet of a universe is reused.
+     *
+     * @param universes collection of {@link DMXUniverse}
+     */
+    @Override
+    public synchronized void render(Collection<DMXUniverse> universes) {
+        if (!connected) {
             LOGGER.error("Not connected to DMX network, can't render data to the devices");
             return;
         }
-        sendData(createDataPacket(universe, data));
+        if (batchFrames.length < universes.size()) {
+            batchFrames = new DMXPacketFrame[universes.size()];
+        }
+
+        // Encode all universes
+        var count = 0;
+        for (DMXUniverse universe : universes) {
+            batchFrames[count++] = encode(universe.getId(), universe.snapshot(), universe.getLength());
+        }
+
+        // Flush them together
+        for (var i = 0; i < count && connected; i++) {
+            sendFrame(batchFrames[i]);
+        }
+    }
+
+    /**
+     * Get the transport used to send and receive packets
+     *
+     * @return {@link IPTransport}
+     */
+    public IPTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Check if every universe is sent to its own sACN multicast group
+     *
+     * @return is multicast
+     */
+    public boolean isMulticast() {
+        return multicast;
+    }
+
+    /**
+     * Get the network interface used to send multicast packets
+     *
+     * @return {@link NetworkInterface} or null for the default of the system
+     */
+    public NetworkInterface getNetworkInterface() {
+        return networkInterface;
+    }
+
+    /**
+     * Get the source used for the sACN protocol
+     *
+     * @return {@link SACNSource}
+     */
+    public SACNSource getSACNSource() {
+        return sacnSource;
+    }
+
+    /**
+     * Enable or disable delta receive mode.
+     * In this mode, every received universe is kept in a persistent {@link DMXUniverseImage}, each received packet
+     * is compared with it in place, and only the {@link DMXSlotChangeListener}s are notified, with the ranges of the
+     * slots which changed. No memory is allocated per packet, and packets without changes don't notify any listener.
+     * The {@link DMXStatusChangeMessage#DATA_RECEIVED} notification with a copy of the data is not sent in this mode.
+     *
+     * @param deltaReceive true to enable delta receive mode
+     */
+    public void setDeltaReceive(boolean deltaReceive) {
+        this.deltaReceive = deltaReceive;
+    }
+
+    /**
+     * Check if delta receive mode is enabled
+     *
+     * @return is delta receive enabled
+     */
+    public boolean isDeltaReceive() {
+        return deltaReceive;
+    }
+
+    /**
+     * Add a listener for the changed slots of received universes, used in delta receive mode
+     *
+     * @param listener {@link DMXSlotChangeListener}
+     */
+    public synchronized void addSlotChangeListener(DMXSlotChangeListener listener) {
+        var updated = Arrays.copyOf(slotChangeListeners, slotChangeListeners.length + 1);
+        updated[slotChangeListeners.length] = listener;
+        slotChangeListeners = updated;
+    }
+
+    /**
+     * Remove a listener for the changed slots of received universes
+     *
+     * @param listener {@link DMXSlotChangeListener}
+     */
+    public synchronized void removeSlotChangeListener(DMXSlotChangeListener listener) {
+        slotChangeListeners = Arrays.stream(slotChangeListeners)
+                .filter(l -> l != listener)
+                .toArray(DMXSlotChangeListener[]::new);
+    }
+
+    /**
+     * Get the image of a received universe, only available in delta receive mode.
+     * The image is updated by the listener thread, so the values can change while being read.
+     *
+     * @param universe port-address for ArtNet, or universe for sACN
+     * @return {@link DMXUniverseImage} or null if nothing was received for this universe
+     */
+    public DMXUniverseImage getReceivedUniverse(int universe) {
+        var images = receivedUniverses;
+        return (universe >= 0 && universe < images.length) ? images[universe] : null;
     }
 
     @Override
     public void close() {
         autoReconnect = false;
         listening = false;
-        if (socket != null) {
-            socket.close();
-        }
+        closeTransport();
         connected = false;
         notifyListeners(DMXStatusChangeMessage.DISCONNECTED);
     }
@@ -144,19 +378,127 @@ public class DMXIPController implements DMXController {
         return connected;
     }
 
-    private void sendData(byte[] data) {
+    private DMXPacketFrame encode(int universe, byte[] data, int length) {
+        if (protocol == IPProtocol.ARTNET) {
+            var frame = getArtNetFrame(universe);
+            frame.update(data, length);
+            return frame;
+        } else {
+            var frame = getSACNFrame(universe);
+            sacnSource.update(frame, data, length);
+            return frame;
+        }
+    }
+
+    private ArtNetDMXFrame getArtNetFrame(int universe) {
+        if (universe < 0 || universe >= artNetFrames.length) {
+            throw new IllegalArgumentException("Universe must be 0-15");
+        }
+        var frame = artNetFrames[universe];
+        if (frame == null) {
+            frame = new ArtNetDMXFrame(universe, 0, 0, transport == IPTransport.DATAGRAM_CHANNEL);
+            artNetFrames[universe] = frame;
+        }
+        return frame;
+    }
+
+    private SACNFrame getSACNFrame(int universe) {
+        var frame = (universe > 0 && universe < sacnFrames.length) ? sacnFrames[universe] : null;
+        if (frame == null) {
+            frame = sacnSource.createFrame(universe, SACNPacket.DEFAULT_PRIORITY, transport == IPTransport.DATAGRAM_CHANNEL);
+            if (universe >= sacnFrames.length) {
+                sacnFrames = Arrays.copyOf(sacnFrames, Math.max(universe + 1, sacnFrames.length * 2));
+            }
+            sacnFrames[universe] = frame;
+        }
+        return frame;
+    }
+
+    private void openTransport() throws IOException {
+        if (transport == IPTransport.DATAGRAM_CHANNEL) {
+            this.channel = DatagramChannel.open();
+            if (multicast) {
+                // Packets are sent to the group of their universe, so the channel can't be connected
+                if (networkInterface != null) {
+                    this.channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+                }
+            } else {
+                // Broadcast is enabled by default on a DatagramSocket, but not on a channel, ArtNet is often broadcast
+                this.channel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+                // A connected channel can use gathering writes, without a target address per packet
+                this.channel.connect(new InetSocketAddress(address, port));
+            }
+        } else {
+            this.socket = new DatagramSocket();
+            if (multicast && networkInterface != null) {
+                this.socket.setOption(StandardSocketOptions.IP_MULTICAST_IF, networkInterface);
+            }
+        }
+    }
+
+    private InetSocketAddress getMulticastTarget(int universe) {
+        var target = universe < multicastTargets.length ? multicastTargets[universe] : null;
+        if (target == null) {
+            target = new InetSocketAddress(SACNPacket.getMulticastAddress(universe), port);
+            if (universe >= multicastTargets.length) {
+                multicastTargets = Arrays.copyOf(multicastTargets, Math.max(universe + 1, multicastTargets.length * 2));
+            }
+            multicastTargets[universe] = target;
+        }
+        return target;
+    }
+
+    private void closeTransport() {
+        if (socket != null) {
+            socket.close();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.warn("Failed to close channel: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void sendFrame(DMXPacketFrame frame) {
+        if (channel == null) {
+            sendData(frame.getArray(), frame.getLength(), multicast ? getMulticastTarget(frame.getUniverse()) : null);
+            return;
+        }
+        try {
+            if (multicast) {
+                channel.send(frame.getBuffer(), getMulticastTarget(frame.getUniverse()));
+            } else {
+                // Header and payload are written with one gathering write, resulting in a single datagram
+                gatherBuffers[0] = frame.getHeader();
+                gatherBuffers[1] = frame.getPayload();
+                channel.write(gatherBuffers);
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Sent packet to {}, length {}", address, frame.getLength());
+            }
+        } catch (PortUnreachableException e) {
+            // ICMP reply from a previous packet on a connected channel, the network itself is still available
+            LOGGER.debug("Port {} unreachable on {}", port, address);
+        } catch (IOException e) {
+            LOGGER.error("Send failed: {}", e.getMessage());
+            handleDisconnection();
+        }
+    }
+
+    private void sendData(byte[] data, int length, InetSocketAddress target) {
         try {
-            DatagramPacket datagramPacket = new DatagramPacket(
-                    data,
-                    data.length,
-                    address,
-                    port
-            );
-            socket.send(datagramPacket);
+            // The packet is reused, as render is synchronized only one thread is sending at a time
+            sendPacket.setData(data, 0, length);
+            if (target != null) {
+                sendPacket.setSocketAddress(target);
+            }
+            socket.send(sendPacket);
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Sent packet to {}, length {}: {}",
-                        address, datagramPacket.getLength(),
-                        HexTool.toHexString(datagramPacket.getData()));
+                        address, length,
+                        HexTool.toHexString(Arrays.copyOf(data, length)));
             }
         } catch (IOException e) {
             LOGGER.error("Send failed: {}", e.getMessage());
@@ -202,11 +544,8 @@ public class DMXIPController implements DMXController {
 
     private boolean attemptReconnect() {
         try {
-            if (socket != null && !socket.isClosed()) {
-                socket.close();
-            }
-
-            this.socket = new DatagramSocket();
+            closeTransport();
+            openTransport();
             this.connected = true;
             this.listening = true;
 
@@ -224,19 +563,35 @@ public class DMXIPController implements DMXController {
         var listenerThread = new Thread(() -> {
             byte[] receiveBuffer = new byte[1024]; // Adjust buffer size as needed
             DatagramPacket receivedPacket = new DatagramPacket(receiveBuffer, receiveBuffer.length);
+            ByteBuffer receivedBuffer = ByteBuffer.wrap(receiveBuffer);
 
             while (listening && connected) {
                 try {
-                    socket.receive(receivedPacket); // This blocks until a packet is received
+                    int length;
+                    if (channel != null && multicast) {
+                        receivedBuffer.clear();
+                        channel.receive(receivedBuffer); // An unconnected channel can't read
+                        length = receivedBuffer.position();
+                    } else if (channel != null) {
+                        receivedBuffer.clear();
+                        length = channel.read(receivedBuffer); // This blocks until a packet is received
+                    } else {
+                        socket.receive(receivedPacket); // This blocks until a packet is received
+                        length = receivedPacket.getLength();
+                    }
+
+                    if (deltaReceive) {
+                        receiveDelta(receiveBuffer, length);
+                        continue;
+                    }
 
                     // Log the received data
-                    LOGGER.debug("Received packet from {}:{}, length: {}",
-                            receivedPacket.getAddress(),
-                            receivedPacket.getPort(),
-                            receivedPacket.getLength());
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Received packet from {}, length: {}", address, length);
+                    }
 
                     // Get the data
-                    byte[] data = Arrays.copyOf(receivedPacket.getData(), receivedPacket.getLength());
+                    byte[] data = Arrays.copyOf(receiveBuffer, length);
 
                     // If you need to log the actual data:
                     if (LOGGER.isTraceEnabled()) {
@@ -250,6 +605,8 @@ public class DMXIPController implements DMXController {
                     }
                 } catch (SocketTimeoutException e) {
                     LOGGER.warn("Socket timeout: {}", e.getMessage());
+                } catch (PortUnreachableException e) {
+                    LOGGER.debug("Port {} unreachable on {}", port, address);
                 } catch (IOException e) {
                     if (listening && connected) {
                         LOGGER.error("Error receiving packet: {}", e.getMessage());
@@ -267,6 +624,48 @@ public class DMXIPController implements DMXController {
         listenerThread.start();
     }
 
+    /**
+     * Decode a received packet in place, update the image of its universe, and notify the slot change listeners
+     * when any slot changed.
+     */
+    private void receiveDelta(byte[] packet, int length) {
+        int universe;
+        int dmxOffset;
+        int dmxLength;
+        if (protocol == IPProtocol.ARTNET && ArtNetPacket.isArtDMXPacket(packet, length)) {
+            universe = ArtNetPacket.getPortAddress(packet);
+            dmxOffset = ArtNetPacket.HEADER_LENGTH;
+            dmxLength = ArtNetPacket.getDmxDataLength(packet, length);
+        } else if (protocol == IPProtocol.SACN && SACNPacket.isSACNDataPacket(packet, length)) {
+            universe = SACNPacket.getUniverse(packet);
+            dmxOffset = SACNPacket.HEADER_LENGTH;
+            dmxLength = SACNPacket.getDmxDataLength(packet, length);
+        } else {
+            return;
+        }
+
+        var image = getReceivedImage(universe);
+        if (image.update(packet, dmxOffset, dmxLength)) {
+            for (DMXSlotChangeListener listener : slotChangeListeners) {
+                listener.notify(image);
+            }
+        }
+    }
+
+    private DMXUniverseImage getReceivedImage(int universe) {
+        var images = receivedUniverses;
+        var image = universe < images.length ? images[universe] : null;
+        if (image == null) {
+            image = new DMXUniverseImage(universe);
+            if (universe >= images.length) {
+                images = Arrays.copyOf(images, Math.max(universe + 1, images.length * 2));
+            }
+            images[universe] = image;
+            receivedUniverses = images;
+        }
+        return image;
+    }
+
     /**
      * Create DMX data packet for the given universe
      *
@@ -288,7 +687,7 @@ public class DMXIPController implements DMXController {
         if (this.protocol == IPProtocol.ARTNET) {
             return ArtNetPacket.createArtNetDMXPacket(data, universe);
         } else {
-            return SACNPacket.createSACNPacket(data, universe);
+            return SACNPacket.createSACNPacket(sacnSource, data, universe, SACNPacket.DEFAULT_PRIORITY);
         }
     }
 }
\ No newline at end of file
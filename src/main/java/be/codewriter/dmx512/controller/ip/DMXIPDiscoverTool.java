@@ -49,13 +49,13 @@ public class DMXIPDiscoverTool {
                 localAddresses.addAll(Collections.list(ni.getInetAddresses()));
             }
 
-            // Send Art-Net poll packet
+            // Send Art-Net poll packet as broadcast, or sACN packet to the multicast group of the universe
             byte[] pollPacket = createDetectPacket(ipProtocol, universe);
             int port = ipProtocol == IPProtocol.ARTNET ? ART_NET_PORT : SACN_PORT;
             DatagramPacket packet = new DatagramPacket(
                     pollPacket,
                     pollPacket.length,
-                    InetAddress.getByName("255.255.255.255"),
+                    ipProtocol == IPProtocol.ARTNET ? InetAddress.getByName("255.255.255.255") : SACNPacket.getMulticastAddress(universe),
                     port
             );
 
@@ -0,0 +1,599 @@
+package be.codewriter.dmx512.controller.ip;
+
+import be.codewriter.dmx512.controller.change.DMXSlotChangeListener;
+import be.codewriter.dmx512.controller.change.DMXSourceFrameListener;
+import be.codewriter.dmx512.controller.change.DMXUniverseImage;
+import be.codewriter.dmx512.controller.ip.packet.ArtNetPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNPacket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.MembershipKey;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import static be.codewriter.dmx512.controller.ip.packet.ArtNetPacket.ART_NET_PORT;
+import static be.codewriter.dmx512.controller.ip.packet.SACNPacket.SACN_PORT;
+
+/**
+ * Receiver for DMX data over IP, for many universes at once.
+ * The ArtNet and sACN ports are bound once, and all channels are read by one thread with a {@link Selector}.
+ * Each received packet is decoded in place, ArtDMX by its port-address (Net, SubNet and Universe)
+ * and sACN by its universe, and dispatched to the {@link DMXSlotChangeListener}s subscribed to that universe.
+ * <p>
+ * Every subscribed universe has a persistent {@link DMXUniverseImage}, so only the changed slots are reported,
+ * and decoding a packet doesn't allocate any memory. The sender address returned by the channel is only allocated
+ * by the JDK when it differs from the previous datagram. Packets for universes without subscribers are ignored.
+ * A {@link DMXSourceFrameListener} gets every frame instead, with the source and priority of the packet,
+ * and is notified when a sACN source terminates its stream. sACN preview data is ignored.
+ * Each distinct sACN CID and ArtNet sender address gets its own source id on first sight,
+ * which stays the same while the receiver exists.
+ * The listeners are called on the receiver thread, and should return quickly.
+ * <p>
+ * When a network interface for multicast is defined, the sACN channel joins the multicast group 239.255.hi.lo of
+ * every subscribed universe, and leaves it again when the last listener of the universe is removed.
+ */
+public class DMXIPReceiver implements AutoCloseable {
+    /**
+     * Highest ArtNet port-address (15 bits)
+     */
+    public static final int MAX_ART_NET_PORT_ADDRESS = 0x7FFF;
+    /**
+     * Highest sACN universe
+     */
+    public static final int MAX_SACN_UNIVERSE = 63999;
+    private static final Logger LOGGER = LoggerFactory.getLogger(DMXIPReceiver.class.getName());
+    private static final int RECEIVE_BUFFER_SIZE = 1024;
+
+    private final InetAddress bindAddress;
+    private final int artNetPort;
+    private final int sacnPort;
+    private final NetworkInterface multicastInterface;
+    private final Map<Integer, MembershipKey> memberships = new HashMap<>();
+    private final byte[] receiveArray = new byte[RECEIVE_BUFFER_SIZE];
+    private final ByteBuffer receiveBuffer = ByteBuffer.wrap(receiveArray);
+    private final Object subscriptionLock = new Object();
+    private volatile Subscription[] artNetSubscriptions = new Subscription[16];
+    private volatile Subscription[] sacnSubscriptions = new Subscription[16];
+    private volatile boolean running = false;
+    private Selector selector;
+    private DatagramChannel artNetChannel;
+    private DatagramChannel sacnChannel;
+    private Thread receiverThread;
+    private volatile long receivedPackets;
+    // Known sources, only used by the receiver thread, the index is the source id
+    private Object[] sources = new Object[8];
+    private int sourceCount;
+
+    /**
+     * Constructor for a receiver on all interfaces, with the default ArtNet and sACN ports,
+     * joining the sACN multicast groups on the default multicast interface
+     */
+    public DMXIPReceiver() {
+        this(null, ART_NET_PORT, SACN_PORT, getDefaultMulticastInterface());
+    }
+
+    /**
+     * Constructor for a receiver on the given address and ports, without sACN multicast.
+     * A port of 0 binds to any free port, a negative port disables the protocol.
+     *
+     * @param bindAddress local address to bind to, or null for all interfaces
+     * @param artNetPort  port for ArtNet
+     * @param sacnPort    port for sACN
+     */
+    public DMXIPReceiver(InetAddress bindAddress, int artNetPort, int sacnPort) {
+        this(bindAddress, artNetPort, sacnPort, null);
+    }
+
+    /**
+     * Constructor for a receiver on the given address and ports, joining the sACN multicast groups of the
+     * subscribed universes on the given interface.
+     * A port of 0 binds to any free port, a negative port disables the protocol.
+     * Multicast packets are only received when bound to all interfaces (null).
+     *
+     * @param bindAddress        local address to bind to, or null for all interfaces
+     * @param artNetPort         port for ArtNet
+     * @param sacnPort           port for sACN
+     * @param multicastInterface {@link NetworkInterface} to join the multicast groups on, or null to disable multicast
+     */
+    public DMXIPReceiver(InetAddress bindAddress, int artNetPort, int sacnPort, NetworkInterface multicastInterface) {
+        if (artNetPort > 65535 || sacnPort > 65535) {
+            throw new IllegalArgumentException("Port must be 0-65535, or negative to disable the protocol");
+        }
+        if (artNetPort < 0 && sacnPort < 0) {
+            throw new IllegalArgumentException("At least one protocol must be enabled");
+        }
+        this.bindAddress = bindAddress;
+        this.artNetPort = artNetPort;
+        this.sacnPort = sacnPort;
+        this.multicastInterface = multicastInterface;
+    }
+
+    /**
+     * Subscribe to the changed slots of a received universe
+     *
+     * @param protocol {@link IPProtocol}
+     * @param universe port-address for ArtNet (0-32767), or universe for sACN (1-63999)
+     * @param listener {@link DMXSlotChangeListener} to be notified of the changed slots
+     */
+    public void subscribe(IPProtocol protocol, int universe, DMXSlotChangeListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must be defined");
+        }
+        validateUniverse(protocol, universe);
+        updateSubscription(protocol, universe, subscription -> subscription.with(listener));
+    }
+
+    /**
+     * Remove a subscription to the changed slots of a received universe.
+     * When the last listener of a universe is removed, its packets are ignored again.
+     *
+     * @param protocol {@link IPProtocol}
+     * @param universe port-address for ArtNet, or universe for sACN
+     * @param listener {@link DMXSlotChangeListener}
+     */
+    public void unsubscribe(IPProtocol protocol, int universe, DMXSlotChangeListener listener) {
+        updateSubscription(protocol, universe, subscription -> subscription.without(listener));
+    }
+
+    /**
+     * Subscribe to every received frame of a universe, with the source and priority of the packet.
+     * Unlike {@link #subscribe(IPProtocol, int, DMXSlotChangeListener)}, the listener is also notified of
+     * unchanged frames, so a source which keeps sending the same values can be tracked as active.
+     *
+     * @param protocol {@link IPProtocol}
+     * @param universe port-address for ArtNet (0-32767), or universe for sACN (1-63999)
+     * @param listener {@link DMXSourceFrameListener}
+     */
+    public void subscribeFrames(IPProtocol protocol, int universe, DMXSourceFrameListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener must be defined");
+        }
+        validateUniverse(protocol, universe);
+        updateSubscription(protocol, universe, subscription -> subscription.with(listener));
+    }
+
+    /**
+     * Remove a subscription to every received frame of a universe
+     *
+     * @param protocol {@link IPProtocol}
+     * @param universe port-address for ArtNet, or universe for sACN
+     * @param listener {@link DMXSourceFrameListener}
+     */
+    public void unsubscribeFrames(IPProtocol protocol, int universe, DMXSourceFrameListener listener) {
+        updateSubscription(protocol, universe, subscription -> subscription.without(listener));
+    }
+
+    /**
+     * Replace the subscription of a universe, and join or leave its multicast group when it's added or removed
+     */
+    private void updateSubscription(IPProtocol protocol, int universe, UnaryOperator<Subscription> update) {
+        synchronized (subscriptionLock) {
+            var subscriptions = getSubscriptions(protocol);
+            var current = (universe >= 0 && universe < subscriptions.length) ? subscriptions[universe] : null;
+            var updated = update.apply(current == null ? new Subscription(new DMXUniverseImage(universe)) : current);
+            if (updated.isEmpty()) {
+                updated = null;
+            }
+            if (current == null && updated == null) {
+                return;
+            }
+            if (universe >= subscriptions.length) {
+                subscriptions = Arrays.copyOf(subscriptions, Math.max(universe + 1, subscriptions.length * 2));
+            } else {
+                subscriptions = subscriptions.clone();
+            }
+            subscriptions[universe] = updated;
+            setSubscriptions(protocol, subscriptions);
+            if (protocol == IPProtocol.SACN && updated != null) {
+                joinGroup(universe);
+            } else if (protocol == IPProtocol.SACN) {
+                leaveGroup(universe);
+            }
+        }
+    }
+
+    /**
+     * Get the image of a subscribed universe.
+     * The image is updated by the receiver thread, so the values can change while being read.
+     *
+     * @param protocol {@link IPProtocol}
+     * @param universe port-address for ArtNet, or universe for sACN
+     * @return {@link DMXUniverseImage} or null if the universe isn't subscribed
+     */
+    public DMXUniverseImage getUniverse(IPProtocol protocol, int universe) {
+        var subscriptions = getSubscriptions(protocol);
+        var subscription = (universe >= 0 && universe < subscriptions.length) ? subscriptions[universe] : null;
+        return subscription == null ? null : subscription.image;
+    }
+
+    /**
+     * Bind the channels and start the receiver thread
+     *
+     * @throws IOException when a port can't be bound
+     */
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        try {
+            if (artNetPort >= 0) {
+                artNetChannel = openChannel(artNetPort, IPProtocol.ARTNET);
+            }
+            if (sacnPort >= 0) {
+                sacnChannel = openChannel(sacnPort, IPProtocol.SACN);
+                joinSubscribedGroups();
+            }
+        } catch (IOException e) {
+            closeChannels();
+            throw e;
+        }
+        running = true;
+        receiverThread = new Thread(this::receiveLoop, "DMX-IP-Receiver");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+        LOGGER.info("Started DMX IP receiver on ArtNet port {} and sACN port {}", getArtNetPort(), getSACNPort());
+    }
+
+    /**
+     * Stop the receiver thread and close the channels
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            receiverThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        receiverThread = null;
+        synchronized (subscriptionLock) {
+            // Closing the channel drops the memberships
+            memberships.clear();
+        }
+        closeChannels();
+        LOGGER.info("Stopped DMX IP receiver");
+    }
+
+    /**
+     * Check if the receiver is running
+     *
+     * @return is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Get the local ArtNet port, useful when bound to any free port
+     *
+     * @return port, or -1 if ArtNet isn't received
+     */
+    public int getArtNetPort() {
+        return getLocalPort(artNetChannel);
+    }
+
+    /**
+     * Get the local sACN port, useful when bound to any free port
+     *
+     * @return port, or -1 if sACN isn't received
+     */
+    public int getSACNPort() {
+        return getLocalPort(sacnChannel);
+    }
+
+    /**
+     * Get the number of received packets, including ignored ones
+     *
+     * @return number of packets
+     */
+    public long getReceivedPackets() {
+        return receivedPackets;
+    }
+
+    private DatagramChannel openChannel(int port, IPProtocol protocol) throws IOException {
+        var channel = DatagramChannel.open();
+        try {
+            // Allow other applications on this host to receive on the standard ports too
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.bind(new InetSocketAddress(bindAddress, port));
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, protocol);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the multicast interface on which the sACN groups are joined
+     *
+     * @return {@link NetworkInterface} or null if multicast is disabled
+     */
+    public NetworkInterface getMulticastInterface() {
+        return multicastInterface;
+    }
+
+    /**
+     * Check if the multicast group of a sACN universe is joined
+     *
+     * @param universe sACN universe
+     * @return is joined
+     */
+    public boolean isJoined(int universe) {
+        synchronized (subscriptionLock) {
+            var key = memberships.get(universe);
+            return key != null && key.isValid();
+        }
+    }
+
+    /**
+     * Get the first network interface which is up, supports multicast and isn't a loopback interface
+     *
+     * @return {@link NetworkInterface} or null if none is available
+     */
+    public static NetworkInterface getDefaultMulticastInterface() {
+        try {
+            for (NetworkInterface networkInterface : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+                if (networkInterface.isUp() && networkInterface.supportsMulticast() && !networkInterface.isLoopback()) {
+                    return networkInterface;
+                }
+            }
+        } catch (SocketException e) {
+            LOGGER.warn("Failed to list the network interfaces: {}", e.getMessage());
+        }
+        return null;
+    }
+
+    private void joinSubscribedGroups() {
+        synchronized (subscriptionLock) {
+            var subscriptions = sacnSubscriptions;
+            for (var universe = 0; universe < subscriptions.length; universe++) {
+                if (subscriptions[universe] != null) {
+                    joinGroup(universe);
+                }
+            }
+        }
+    }
+
+    private void joinGroup(int universe) {
+        if (multicastInterface == null || sacnChannel == null || !sacnChannel.isOpen() || memberships.containsKey(universe)) {
+            return;
+        }
+        try {
+            memberships.put(universe, sacnChannel.join(SACNPacket.getMulticastAddress(universe), multicastInterface));
+            LOGGER.debug("Joined multicast group of universe {} on {}", universe, multicastInterface.getName());
+        } catch (IOException e) {
+            LOGGER.warn("Failed to join multicast group of universe {}: {}", universe, e.getMessage());
+        }
+    }
+
+    private void leaveGroup(int universe) {
+        var key = memberships.remove(universe);
+        if (key != null) {
+            key.drop();
+            LOGGER.debug("Left multicast group of universe {}", universe);
+        }
+    }
+
+    private void closeChannels() {
+        for (var closeable : new Closeable[]{artNetChannel, sacnChannel, selector}) {
+            if (closeable != null) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    LOGGER.warn("Failed to close receiver: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void receiveLoop() {
+        while (running) {
+            try {
+                selector.select(this::read);
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.error("Error while receiving: {}", e.getMessage());
+                }
+            } catch (Exception e) {
+                LOGGER.error("Unexpected error: {}", e.getMessage());
+            }
+        }
+        LOGGER.debug("DMX IP receiver loop ended");
+    }
+
+    private void read(SelectionKey key) {
+        var channel = (DatagramChannel) key.channel();
+        var protocol = (IPProtocol) key.attachment();
+        try {
+            // Read all queued datagrams, the selector only needs to wake up again when the channel is drained
+            while (true) {
+                receiveBuffer.clear();
+                var sender = channel.receive(receiveBuffer);
+                if (sender == null) {
+                    return;
+                }
+                receivedPackets++;
+                dispatch(protocol, receiveBuffer.position(), sender);
+            }
+        } catch (IOException e) {
+            if (running) {
+                LOGGER.error("Error receiving {} packet: {}", protocol, e.getMessage());
+            }
+        }
+    }
+
+    private void dispatch(IPProtocol protocol, int length, SocketAddress sender) {
+        int universe;
+        int dmxOffset;
+        int dmxLength;
+        var terminated = false;
+        if (protocol == IPProtocol.ARTNET && ArtNetPacket.isArtDMXPacket(receiveArray, length)) {
+            universe = ArtNetPacket.getPortAddress(receiveArray);
+            dmxOffset = ArtNetPacket.HEADER_LENGTH;
+            dmxLength = ArtNetPacket.getDmxDataLength(receiveArray, length);
+        } else if (protocol == IPProtocol.SACN && SACNPacket.isSACNDataPacket(receiveArray, length)) {
+            var options = SACNPacket.getOptions(receiveArray);
+            if ((options & SACNPacket.OPTION_PREVIEW_DATA) != 0) {
+                // Preview data isn't meant for live output
+                return;
+            }
+            terminated = (options & SACNPacket.OPTION_STREAM_TERMINATED) != 0;
+            universe = SACNPacket.getUniverse(receiveArray);
+            dmxOffset = SACNPacket.HEADER_LENGTH;
+            dmxLength = SACNPacket.getDmxDataLength(receiveArray, length);
+        } else {
+            return;
+        }
+
+        var subscriptions = getSubscriptions(protocol);
+        var subscription = universe < subscriptions.length ? subscriptions[universe] : null;
+        if (subscription == null) {
+            return;
+        }
+        if (terminated) {
+            // A terminated stream has no valid data, the source is gone without waiting for its timeout
+            removeSource(subscription, universe, getSourceId(protocol, sender));
+            return;
+        }
+        if (subscription.frameListeners.length > 0) {
+            var sourceId = getSourceId(protocol, sender);
+            var priority = protocol == IPProtocol.SACN ? SACNPacket.getPriority(receiveArray) : SACNPacket.DEFAULT_PRIORITY;
+            for (DMXSourceFrameListener listener : subscription.frameListeners) {
+                try {
+                    listener.notify(universe, sourceId, priority, receiveArray, dmxOffset, dmxLength);
+                } catch (Exception e) {
+                    LOGGER.error("Error in frame listener of universe {}: {}", universe, e.getMessage());
+                }
+            }
+        }
+        if (subscription.listeners.length > 0 && subscription.image.update(receiveArray, dmxOffset, dmxLength)) {
+            for (DMXSlotChangeListener listener : subscription.listeners) {
+                try {
+                    listener.notify(subscription.image);
+                } catch (Exception e) {
+                    LOGGER.error("Error in listener of universe {}: {}", universe, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the id of the source of the received packet, and assign the next id to a new source.
+     * sACN sources are identified by their CID, ArtNet sources by the address they send from.
+     */
+    private int getSourceId(IPProtocol protocol, SocketAddress sender) {
+        for (var i = 0; i < sourceCount; i++) {
+            var source = sources[i];
+            if (protocol == IPProtocol.SACN
+                    ? source instanceof byte[] cid && SACNPacket.hasCid(receiveArray, cid)
+                    : sender.equals(source)) {
+                return i;
+            }
+        }
+        if (sourceCount == sources.length) {
+            sources = Arrays.copyOf(sources, sources.length * 2);
+        }
+        sources[sourceCount] = protocol == IPProtocol.SACN ? SACNPacket.getCid(receiveArray) : sender;
+        return sourceCount++;
+    }
+
+    private void removeSource(Subscription subscription, int universe, int sourceId) {
+        for (DMXSourceFrameListener listener : subscription.frameListeners) {
+            try {
+                listener.removeSource(universe, sourceId);
+            } catch (Exception e) {
+                LOGGER.error("Error in frame listener of universe {}: {}", universe, e.getMessage());
+            }
+        }
+    }
+
+    private Subscription[] getSubscriptions(IPProtocol protocol) {
+        return protocol == IPProtocol.ARTNET ? artNetSubscriptions : sacnSubscriptions;
+    }
+
+    private void setSubscriptions(IPProtocol protocol, Subscription[] subscriptions) {
+        if (protocol == IPProtocol.ARTNET) {
+            artNetSubscriptions = subscriptions;
+        } else {
+            sacnSubscriptions = subscriptions;
+        }
+    }
+
+    private static void validateUniverse(IPProtocol protocol, int universe) {
+        if (protocol == IPProtocol.ARTNET && (universe < 0 || universe > MAX_ART_NET_PORT_ADDRESS)) {
+            throw new IllegalArgumentException("ArtNet port-address must be 0-" + MAX_ART_NET_PORT_ADDRESS);
+        }
+        if (protocol == IPProtocol.SACN && (universe < 1 || universe > MAX_SACN_UNIVERSE)) {
+            throw new IllegalArgumentException("sACN universe must be 1-" + MAX_SACN_UNIVERSE);
+        }
+    }
+
+    private static int getLocalPort(DatagramChannel channel) {
+        try {
+            if (channel != null && channel.getLocalAddress() instanceof InetSocketAddress local) {
+                return local.getPort();
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to get local port: {}", e.getMessage());
+        }
+        return -1;
+    }
+
+    private record Subscription(DMXUniverseImage image, DMXSlotChangeListener[] listeners,
+                                DMXSourceFrameListener[] frameListeners) {
+        private Subscription(DMXUniverseImage image) {
+            this(image, new DMXSlotChangeListener[0], new DMXSourceFrameListener[0]);
+        }
+
+        private boolean isEmpty() {
+            return listeners.length == 0 && frameListeners.length == 0;
+        }
+
+        private Subscription with(DMXSlotChangeListener listener) {
+            var updated = Arrays.copyOf(listeners, listeners.length + 1);
+            updated[listeners.length] = listener;
+            return new Subscription(image, updated, frameListeners);
+        }
+
+        private Subscription without(DMXSlotChangeListener listener) {
+            return new Subscription(image, Arrays.stream(listeners)
+                    .filter(l -> l != listener)
+                    .toArray(DMXSlotChangeListener[]::new), frameListeners);
+        }
+
+        private Subscription with(DMXSourceFrameListener listener) {
+            var updated = Arrays.copyOf(frameListeners, frameListeners.length + 1);
+            updated[frameListeners.length] = listener;
+            return new Subscription(image, listeners, updated);
+        }
+
+        private Subscription without(DMXSourceFrameListener listener) {
+            return new Subscription(image, listeners, Arrays.stream(frameListeners)
+                    .filter(l -> l != listener)
+                    .toArray(DMXSourceFrameListener[]::new));
+        }
+    }
+}
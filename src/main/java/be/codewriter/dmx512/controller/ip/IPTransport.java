@@ -0,0 +1,15 @@
+package be.codewriter.dmx512.controller.ip;
+
+/**
+ * Available transports to send and receive the UDP packets of an IP controller
+ */
+public enum IPTransport {
+    /**
+     * Blocking {@link java.net.DatagramSocket} with a heap buffer per packet
+     */
+    DATAGRAM_SOCKET,
+    /**
+     * NIO {@link java.nio.channels.DatagramChannel} with direct buffers and gathering writes
+     */
+    DATAGRAM_CHANNEL
+}
@@ -0,0 +1,186 @@
+package be.codewriter.dmx512.controller.ip.packet;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static be.codewriter.dmx512.controller.ip.packet.ArtNetPacket.HEADER_LENGTH;
+import static be.codewriter.dmx512.controller.ip.packet.ArtNetPacket.MAX_DMX_PACKET_LENGTH;
+
+/**
+ * Reusable Art-Net DMX packet (ArtDMX) for one universe.
+ * The constant header is written once when the frame is created, an update only patches the sequence number,
+ * the length and the DMX data, so sending a frame doesn't allocate any memory.
+ * <p>
+ * As a frame is used for one universe and one destination, it keeps the sequence number of that stream:
+ * each update uses the next number from 1 to 255, skipping 0 which disables sequencing for the receiver.
+ * <p>
+ * A frame is not thread-safe, it's expected to be updated and sent by one thread at a time,
+ * only the sequence number can be taken concurrently with {@link #nextSequenceNumber()}.
+ */
+public class ArtNetDMXFrame implements DMXPacketFrame {
+
+    private final int universe;
+    private final int subnet;
+    private final int net;
+    private final ByteBuffer buffer;
+    private final ByteBuffer view;
+    private final ByteBuffer headerView;
+    private final ByteBuffer payloadView;
+    private final AtomicInteger sequence = new AtomicInteger();
+    private int length;
+
+    /**
+     * Constructor for a frame on the given universe (subnet=0, net=0), backed by a heap buffer
+     *
+     * @param universe Universe number (0-15)
+     */
+    public ArtNetDMXFrame(int universe) {
+        this(universe, 0, 0, false);
+    }
+
+    /**
+     * Constructor for a frame on the given address
+     *
+     * @param universe Universe number (0-15)
+     * @param subnet   Subnet number (0-15)
+     * @param net      Net number (0-127)
+     * @param direct   use a direct buffer, which can be written to a channel without an extra copy
+     */
+    public ArtNetDMXFrame(int universe, int subnet, int net, boolean direct) {
+        ArtNetPacket.validateAddress(universe, subnet, net);
+        this.universe = universe;
+        this.subnet = subnet;
+        this.net = net;
+        this.buffer = direct ? ByteBuffer.allocateDirect(MAX_DMX_PACKET_LENGTH) : ByteBuffer.allocate(MAX_DMX_PACKET_LENGTH);
+        this.view = buffer.duplicate();
+        this.headerView = buffer.duplicate();
+        this.payloadView = buffer.duplicate();
+        ArtNetPacket.writeArtNetDMXHeader(buffer, 0, universe, subnet, net);
+        this.length = HEADER_LENGTH;
+    }
+
+    /**
+     * Update the frame with the given DMX data
+     *
+     * @param dmxData Array of DMX channel values (1-512 bytes)
+     */
+    public void update(byte[] dmxData) {
+        update(dmxData, dmxData == null ? 0 : dmxData.length);
+    }
+
+    /**
+     * Update the frame with the first values of the given DMX data, and the next sequence number
+     *
+     * @param dmxData Array of DMX channel values
+     * @param length  number of values to use (1-512)
+     */
+    public void update(byte[] dmxData, int length) {
+        update(dmxData, length, nextSequenceNumber());
+    }
+
+    /**
+     * Update the frame with the first values of the given DMX data and the given sequence number
+     *
+     * @param dmxData  Array of DMX channel values
+     * @param length   number of values to use (1-512)
+     * @param sequence sequence number, 0 to disable sequencing
+     */
+    public void update(byte[] dmxData, int length, byte sequence) {
+        ArtNetPacket.validateDmxData(dmxData, length);
+        this.length = ArtNetPacket.writeArtNetDMXData(buffer, 0, dmxData, length, sequence);
+    }
+
+    /**
+     * Update the frame with DMX data copied from another buffer, e.g. a received packet, without an intermediate array
+     *
+     * @param dmxData    buffer containing the DMX channel values, its position is not changed
+     * @param dataOffset index of the first value in the buffer
+     * @param length     number of values to use (1-512)
+     * @param sequence   sequence number, 0 to disable sequencing
+     */
+    public void update(ByteBuffer dmxData, int dataOffset, int length, byte sequence) {
+        ArtNetPacket.validateDmxData(dmxData, dataOffset, length);
+        this.length = ArtNetPacket.writeArtNetDMXData(buffer, 0, dmxData, dataOffset, length, sequence);
+    }
+
+    /**
+     * Update the frame with DMX data copied from another buffer, and the next sequence number
+     *
+     * @param dmxData    buffer containing the DMX channel values, its position is not changed
+     * @param dataOffset index of the first value in the buffer
+     * @param length     number of values to use (1-512)
+     */
+    public void update(ByteBuffer dmxData, int dataOffset, int length) {
+        update(dmxData, dataOffset, length, nextSequenceNumber());
+    }
+
+    /**
+     * Take the next sequence number of this frame, lock-free so it's also correct when called by multiple threads.
+     * The numbers go from 1 to 255 and wrap around to 1, as 0 means sequencing is disabled.
+     *
+     * @return sequence number
+     */
+    public byte nextSequenceNumber() {
+        int current;
+        int next;
+        do {
+            current = sequence.get();
+            next = current >= 255 ? 1 : current + 1;
+        } while (!sequence.compareAndSet(current, next));
+        return (byte) next;
+    }
+
+    @Override
+    public ByteBuffer getBuffer() {
+        view.limit(length).position(0);
+        return view;
+    }
+
+    @Override
+    public ByteBuffer getHeader() {
+        headerView.limit(HEADER_LENGTH).position(0);
+        return headerView;
+    }
+
+    @Override
+    public ByteBuffer getPayload() {
+        payloadView.limit(length).position(HEADER_LENGTH);
+        return payloadView;
+    }
+
+    @Override
+    public byte[] getArray() {
+        if (!buffer.hasArray()) {
+            throw new IllegalStateException("Frame is backed by a direct buffer");
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public int getUniverse() {
+        return universe;
+    }
+
+    /**
+     * Get the subnet
+     *
+     * @return subnet number
+     */
+    public int getSubnet() {
+        return subnet;
+    }
+
+    /**
+     * Get the net
+     *
+     * @return net number
+     */
+    public int getNet() {
+        return net;
+    }
+}
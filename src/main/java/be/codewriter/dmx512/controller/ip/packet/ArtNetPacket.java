@@ -20,12 +20,21 @@ public class ArtNetPacket {
      * Default port for the ArtNet protocol
      */
     public static final int ART_NET_PORT = 6454;
+    /**
+     * Length of the ArtDMX header, before the DMX data
+     */
+    public static final int HEADER_LENGTH = 18;
+    /**
+     * Maximum length of an ArtDMX packet with 512 channels
+     */
+    public static final int MAX_DMX_PACKET_LENGTH = HEADER_LENGTH + 512;
     private static final Logger LOGGER = Logger.getLogger(ArtNetPacket.class.getName());
     // Art-Net Constants
     private static final byte[] ART_NET_HEADER = {'A', 'r', 't', '-', 'N', 'e', 't', 0};
     private static final int PROTOCOL_VERSION = 14;
     private static final boolean ENABLE_SEQUENCING = true;
     private static final int PHYSICAL_PORT = 0;
+    private static final int SEQUENCE_OFFSET = 12;
 
     private ArtNetPacket() {
         // Hide constructor
@@ -41,63 +50,14 @@ public class ArtNetPacket {
      * @return Complete Art-Net packet ready for transmission
      */
     public static byte[] createArtNetDMXPacket(byte[] dmxData, int universe, int subnet, int net) {
-        if (dmxData == null || dmxData.length == 0 || dmxData.length > 512) {
+        if (dmxData == null) {
             throw new IllegalArgumentException("DMX data must be 1-512 bytes");
         }
-        if (universe < 0 || universe > 15) {
-            throw new IllegalArgumentException("Universe must be 0-15");
-        }
-        if (subnet < 0 || subnet > 15) {
-            throw new IllegalArgumentException("Subnet must be 0-15");
-        }
-        if (net < 0 || net > 127) {
-            throw new IllegalArgumentException("Net must be 0-127");
-        }
-
-        // Art-Net DMX packet is always even-length for DMX data
-        int dmxLength = dmxData.length;
-        if (dmxLength % 2 != 0) {
-            dmxLength++; // Pad to even length
-        }
-
-        ByteBuffer buffer = ByteBuffer.allocate(18 + dmxLength);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-
-        // Art-Net header
-        buffer.put(ART_NET_HEADER);
-
-        // OpCode (little-endian)
-        buffer.putShort(OP_DMX);
-
-        // Protocol version (big-endian)
-        buffer.order(ByteOrder.BIG_ENDIAN);
-        buffer.putShort((short) PROTOCOL_VERSION);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-
-        // Sequence number
-        var sequenceNumber = 0; // TODO, should this increment?
-        buffer.put(ENABLE_SEQUENCING ? (byte) sequenceNumber : (byte) 0);
-
-        // Physical port
-        buffer.put((byte) PHYSICAL_PORT);
-
-        // Universe address (SubNet + Universe in low byte, Net in high byte)
-        int universeAddress = (net << 8) | (subnet << 4) | universe;
-        buffer.putShort((short) universeAddress);
-
-        // Length of DMX data (big-endian, must be even)
-        buffer.order(ByteOrder.BIG_ENDIAN);
-        buffer.putShort((short) dmxLength);
-
-        // DMX data
-        buffer.put(dmxData);
-
-        // Pad with zero if odd length
-        if (dmxData.length % 2 != 0) {
-            buffer.put((byte) 0);
-        }
 
-        byte[] packet = buffer.array();
+        // A single packet isn't part of a stream, so sequence 0 is used, which disables sequencing for the receiver.
+        // Use an ArtNetDMXFrame per universe and destination to send packets with sequence numbers.
+        byte[] packet = new byte[HEADER_LENGTH + getPaddedLength(dmxData.length)];
+        writeArtNetDMXPacket(ByteBuffer.wrap(packet), dmxData, dmxData.length, universe, subnet, net, (byte) 0);
 
         if (LOGGER.isLoggable(java.util.logging.Level.FINE)) {
             LOGGER.fine("Created ArtDMX packet: Universe=" + universe +
@@ -108,6 +68,31 @@ public class ArtNetPacket {
         return packet;
     }
 
+    /**
+     * Writes an Art-Net DMX packet (ArtDMX) into the given buffer, starting at its current position.
+     * Nothing is allocated, so this can be used with a reused heap or direct buffer.
+     *
+     * @param target   buffer to write into, must have at least {@link #HEADER_LENGTH} + padded length remaining
+     * @param dmxData  Array of DMX channel values
+     * @param length   number of DMX channel values to use from dmxData (1-512)
+     * @param universe Universe number (0-15)
+     * @param subnet   Subnet number (0-15)
+     * @param net      Net number (0-127)
+     * @param sequence sequence number, 0 to disable sequencing
+     * @return number of bytes written, the position of the buffer is advanced by this amount
+     */
+    public static int writeArtNetDMXPacket(ByteBuffer target, byte[] dmxData, int length,
+                                           int universe, int subnet, int net, byte sequence) {
+        validateDmxData(dmxData, length);
+        validateAddress(universe, subnet, net);
+
+        int start = target.position();
+        writeArtNetDMXHeader(target, start, universe, subnet, net);
+        int packetLength = writeArtNetDMXData(target, start, dmxData, length, sequence);
+        target.position(start + packetLength);
+        return packetLength;
+    }
+
     /**
      * Convenience method for single universe (subnet=0, net=0)
      *
@@ -159,6 +144,102 @@ public class ArtNetPacket {
         return createArtPollPacket((byte) 0x00, (byte) 0x00);
     }
 
+    /**
+     * Writes the constant part of an ArtDMX header (ID, OpCode, version, physical port and port-address)
+     * at the given offset, without changing the position of the buffer.
+     */
+    static void writeArtNetDMXHeader(ByteBuffer target, int offset, int universe, int subnet, int net) {
+        target.put(offset, ART_NET_HEADER);
+
+        // OpCode (little-endian)
+        target.put(offset + 8, (byte) (OP_DMX & 0xFF));
+        target.put(offset + 9, (byte) ((OP_DMX >> 8) & 0xFF));
+
+        // Protocol version (big-endian)
+        target.put(offset + 10, (byte) ((PROTOCOL_VERSION >> 8) & 0xFF));
+        target.put(offset + 11, (byte) (PROTOCOL_VERSION & 0xFF));
+
+        // Sequence number, patched per frame
+        target.put(offset + SEQUENCE_OFFSET, (byte) 0);
+
+        // Physical port
+        target.put(offset + 13, (byte) PHYSICAL_PORT);
+
+        // Universe address (SubNet + Universe in low byte, Net in high byte)
+        int universeAddress = (net << 8) | (subnet << 4) | universe;
+        target.put(offset + 14, (byte) (universeAddress & 0xFF));
+        target.put(offset + 15, (byte) ((universeAddress >> 8) & 0xFF));
+    }
+
+    /**
+     * Patches the sequence number, the length and the DMX data of an ArtDMX packet of which the header
+     * was already written at the given offset, without changing the position of the buffer.
+     *
+     * @return total length of the packet
+     */
+    static int writeArtNetDMXData(ByteBuffer target, int offset, byte[] dmxData, int length, byte sequence) {
+        // DMX data
+        target.put(offset + HEADER_LENGTH, dmxData, 0, length);
+        return writeArtNetDMXLength(target, offset, length, sequence);
+    }
+
+    /**
+     * Patches the sequence number, the length and the DMX data copied from another buffer, e.g. a received packet,
+     * without changing the position of either buffer.
+     *
+     * @return total length of the packet
+     */
+    static int writeArtNetDMXData(ByteBuffer target, int offset, ByteBuffer dmxData, int dataOffset, int length, byte sequence) {
+        target.put(offset + HEADER_LENGTH, dmxData, dataOffset, length);
+        return writeArtNetDMXLength(target, offset, length, sequence);
+    }
+
+    private static int writeArtNetDMXLength(ByteBuffer target, int offset, int length, byte sequence) {
+        // Art-Net DMX packet is always even-length for DMX data
+        int dmxLength = getPaddedLength(length);
+
+        target.put(offset + SEQUENCE_OFFSET, ENABLE_SEQUENCING ? sequence : (byte) 0);
+
+        // Length of DMX data (big-endian, must be even)
+        target.put(offset + 16, (byte) ((dmxLength >> 8) & 0xFF));
+        target.put(offset + 17, (byte) (dmxLength & 0xFF));
+
+        // Pad with zero if odd length
+        if (length != dmxLength) {
+            target.put(offset + HEADER_LENGTH + length, (byte) 0);
+        }
+
+        return HEADER_LENGTH + dmxLength;
+    }
+
+    static void validateDmxData(byte[] dmxData, int length) {
+        if (dmxData == null || length <= 0 || length > 512 || length > dmxData.length) {
+            throw new IllegalArgumentException("DMX data must be 1-512 bytes");
+        }
+    }
+
+    static void validateDmxData(ByteBuffer dmxData, int dataOffset, int length) {
+        if (dmxData == null || length <= 0 || length > 512 || dataOffset < 0 || dataOffset + length > dmxData.capacity()) {
+            throw new IllegalArgumentException("DMX data must be 1-512 bytes");
+        }
+    }
+
+    static void validateAddress(int universe, int subnet, int net) {
+        if (universe < 0 || universe > 15) {
+            throw new IllegalArgumentException("Universe must be 0-15");
+        }
+        if (subnet < 0 || subnet > 15) {
+            throw new IllegalArgumentException("Subnet must be 0-15");
+        }
+        if (net < 0 || net > 127) {
+            throw new IllegalArgumentException("Net must be 0-127");
+        }
+    }
+
+    private static int getPaddedLength(int length) {
+        return (length % 2 != 0) ? length + 1 : length;
+    }
+
     public static byte[] extractDmxData(byte[] packet) {
         if (packet == null || packet.length < 18) {
             return null;
@@ -187,6 +268,88 @@ public class ArtNetPacket {
 
     }
 
+    /**
+     * Check if the given received data is an ArtDMX packet, without copying it
+     *
+     * @param packet received data
+     * @param length number of received bytes
+     * @return true if the data starts with an ArtDMX header
+     */
+    public static boolean isArtDMXPacket(byte[] packet, int length) {
+        if (packet == null || length < HEADER_LENGTH || length > packet.length) {
+            return false;
+        }
+        for (int i = 0; i < ART_NET_HEADER.length; i++) {
+            if (packet[i] != ART_NET_HEADER[i]) {
+                return false;
+            }
+        }
+        return packet[8] == (byte) (OP_DMX & 0xFF) && packet[9] == (byte) ((OP_DMX >> 8) & 0xFF);
+    }
+
+    /**
+     * Get the 15-bit port-address of an ArtDMX packet: Net in bits 8-14, SubNet in bits 4-7 and Universe in bits 0-3
+     *
+     * @param packet ArtDMX packet
+     * @return port-address (0-32767)
+     */
+    public static int getPortAddress(byte[] packet) {
+        return ((packet[15] & 0x7F) << 8) | (packet[14] & 0xFF);
+    }
+
+    /**
+     * Get the number of DMX values in an ArtDMX packet, limited to the received data
+     *
+     * @param packet ArtDMX packet
+     * @param length number of received bytes
+     * @return number of DMX values (0-512), which start at {@link #HEADER_LENGTH}
+     */
+    public static int getDmxDataLength(byte[] packet, int length) {
+        int dmxLength = getDmxDataLength(packet) & 0xFFFF;
+        return Math.max(0, Math.min(Math.min(dmxLength, length - HEADER_LENGTH), 512));
+    }
+
+    /**
+     * Check if the given received buffer is an ArtDMX packet, reading from index 0 without changing the position
+     *
+     * @param packet received data, e.g. a direct buffer
+     * @param length number of received bytes
+     * @return true if the data starts with an ArtDMX header
+     */
+    public static boolean isArtDMXPacket(ByteBuffer packet, int length) {
+        if (packet == null || length < HEADER_LENGTH || length > packet.capacity()) {
+            return false;
+        }
+        for (int i = 0; i < ART_NET_HEADER.length; i++) {
+            if (packet.get(i) != ART_NET_HEADER[i]) {
+                return false;
+            }
+        }
+        return packet.get(8) == (byte) (OP_DMX & 0xFF) && packet.get(9) == (byte) ((OP_DMX >> 8) & 0xFF);
+    }
+
+    /**
+     * Get the 15-bit port-address of an ArtDMX packet in a buffer
+     *
+     * @param packet ArtDMX packet
+     * @return port-address (0-32767)
+     */
+    public static int getPortAddress(ByteBuffer packet) {
+        return ((packet.get(15) & 0x7F) << 8) | (packet.get(14) & 0xFF);
+    }
+
+    /**
+     * Get the number of DMX values in an ArtDMX packet in a buffer, limited to the received data
+     *
+     * @param packet ArtDMX packet
+     * @param length number of received bytes
+     * @return number of DMX values (0-512), which start at {@link #HEADER_LENGTH}
+     */
+    public static int getDmxDataLength(ByteBuffer packet, int length) {
+        int dmxLength = ((packet.get(16) & 0xFF) << 8) | (packet.get(17) & 0xFF);
+        return Math.max(0, Math.min(Math.min(dmxLength, length - HEADER_LENGTH), 512));
+    }
+
     public static short getDmxDataLength(byte[] packet) {
         if (packet == null || packet.length < 18) {
             return 0;
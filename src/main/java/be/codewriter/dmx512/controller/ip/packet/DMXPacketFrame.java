@@ -0,0 +1,64 @@
+package be.codewriter.dmx512.controller.ip.packet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable packet for one universe, which is updated in place for every frame.
+ * The returned buffers are views on the same memory, they are reused and only valid until the next update.
+ */
+public interface DMXPacketFrame {
+
+    /**
+     * Get a view on the full packet, with position 0 and limit set to the packet length
+     *
+     * @return {@link ByteBuffer}
+     */
+    ByteBuffer getBuffer();
+
+    /**
+     * Get a view on the protocol header of the packet, which is followed by the payload
+     *
+     * @return {@link ByteBuffer}
+     */
+    ByteBuffer getHeader();
+
+    /**
+     * Get a view on the DMX data of the packet, following the header
+     *
+     * @return {@link ByteBuffer}
+     */
+    ByteBuffer getPayload();
+
+    /**
+     * Get the backing array of the packet, only the first {@link #getLength()} bytes are valid
+     *
+     * @return byte array
+     * @throws IllegalStateException if the frame uses a direct buffer
+     */
+    byte[] getArray();
+
+    /**
+     * Get the length of the current packet
+     *
+     * @return length in bytes
+     */
+    int getLength();
+
+    /**
+     * Get the universe
+     *
+     * @return universe number
+     */
+    int getUniverse();
+
+    /**
+     * Copy the current packet into the given buffer, starting at its current position
+     *
+     * @param target buffer with at least {@link #getLength()} bytes remaining
+     * @return number of bytes written
+     */
+    default int writeTo(ByteBuffer target) {
+        target.put(getBuffer());
+        return getLength();
+    }
+}
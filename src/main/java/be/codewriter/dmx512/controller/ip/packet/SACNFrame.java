@@ -0,0 +1,132 @@
+package be.codewriter.dmx512.controller.ip.packet;
+
+import java.nio.ByteBuffer;
+
+import static be.codewriter.dmx512.controller.ip.packet.SACNPacket.HEADER_LENGTH;
+import static be.codewriter.dmx512.controller.ip.packet.SACNPacket.MAX_PACKET_LENGTH;
+
+/**
+ * Reusable sACN (E1.31) data packet for one universe.
+ * The root, framing and DMP layers are written once when the frame is created, an update only patches the
+ * layer lengths, sequence number, options, property value count and the DMX data,
+ * so sending a frame doesn't allocate any memory.
+ * <p>
+ * A frame is not thread-safe, it's expected to be updated and sent by one thread at a time.
+ */
+public class SACNFrame implements DMXPacketFrame {
+
+    private final int universe;
+    private final int priority;
+    private final ByteBuffer buffer;
+    private final ByteBuffer view;
+    private final ByteBuffer headerView;
+    private final ByteBuffer payloadView;
+    private int length;
+
+    /**
+     * Constructor for a frame on the given universe
+     *
+     * @param universe   DMX universe number (1-63999)
+     * @param priority   Priority level (0-200)
+     * @param cid        16-byte component identifier of the source
+     * @param sourceName name of the source, truncated to 63 bytes
+     * @param direct     use a direct buffer, which can be written to a channel without an extra copy
+     */
+    public SACNFrame(int universe, int priority, byte[] cid, String sourceName, boolean direct) {
+        SACNPacket.validateUniverse(universe);
+        SACNPacket.validatePriority(priority);
+        if (cid == null || cid.length != 16) {
+            throw new IllegalArgumentException("CID must be 16 bytes");
+        }
+        this.universe = universe;
+        this.priority = priority;
+        this.buffer = direct ? ByteBuffer.allocateDirect(MAX_PACKET_LENGTH) : ByteBuffer.allocate(MAX_PACKET_LENGTH);
+        this.view = buffer.duplicate();
+        this.headerView = buffer.duplicate();
+        this.payloadView = buffer.duplicate();
+        SACNPacket.writeSACNHeader(buffer, 0, cid, SACNPacket.toSourceNameBytes(sourceName), priority, universe);
+        this.length = HEADER_LENGTH;
+    }
+
+    /**
+     * Update the frame with the given DMX data
+     *
+     * @param sequence sequence number
+     * @param dmxData  Array of DMX channel values (1-512 bytes)
+     */
+    public void update(byte sequence, byte[] dmxData) {
+        update(sequence, (byte) 0, dmxData, dmxData == null ? 0 : dmxData.length);
+    }
+
+    /**
+     * Update the frame with the first values of the given DMX data
+     *
+     * @param sequence sequence number
+     * @param options  options flags, see {@link SACNPacket#OPTION_PREVIEW_DATA} and others
+     * @param dmxData  Array of DMX channel values
+     * @param length   number of values to use (1-512)
+     */
+    public void update(byte sequence, byte options, byte[] dmxData, int length) {
+        SACNPacket.validateDmxData(dmxData, length);
+        this.length = SACNPacket.writeSACNData(buffer, 0, sequence, options, dmxData, length);
+    }
+
+    /**
+     * Update the frame with DMX data copied from another buffer, e.g. a received packet, without an intermediate array
+     *
+     * @param sequence   sequence number
+     * @param options    options flags, see {@link SACNPacket#OPTION_PREVIEW_DATA} and others
+     * @param dmxData    buffer containing the DMX channel values, its position is not changed
+     * @param dataOffset index of the first value in the buffer
+     * @param length     number of values to use (1-512)
+     */
+    public void update(byte sequence, byte options, ByteBuffer dmxData, int dataOffset, int length) {
+        SACNPacket.validateDmxData(dmxData, dataOffset, length);
+        this.length = SACNPacket.writeSACNData(buffer, 0, sequence, options, dmxData, dataOffset, length);
+    }
+
+    @Override
+    public ByteBuffer getBuffer() {
+        view.limit(length).position(0);
+        return view;
+    }
+
+    @Override
+    public ByteBuffer getHeader() {
+        headerView.limit(HEADER_LENGTH).position(0);
+        return headerView;
+    }
+
+    @Override
+    public ByteBuffer getPayload() {
+        payloadView.limit(length).position(HEADER_LENGTH);
+        return payloadView;
+    }
+
+    @Override
+    public byte[] getArray() {
+        if (!buffer.hasArray()) {
+            throw new IllegalStateException("Frame is backed by a direct buffer");
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public int getUniverse() {
+        return universe;
+    }
+
+    /**
+     * Get the priority
+     *
+     * @return priority
+     */
+    public int getPriority() {
+        return priority;
+    }
+}
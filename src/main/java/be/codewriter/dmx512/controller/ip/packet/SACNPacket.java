@@ -1,7 +1,11 @@
 package be.codewriter.dmx512.controller.ip.packet;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.UUID;
 
 /**
@@ -13,6 +17,30 @@ public class SACNPacket {
      * Default SACN part
      */
     public static final int SACN_PORT = 5568;
+    /**
+     * Default priority
+     */
+    public static final int DEFAULT_PRIORITY = 100;
+    /**
+     * Length of the sACN header up to and including the DMX start code
+     */
+    public static final int HEADER_LENGTH = 126;
+    /**
+     * Maximum length of an sACN data packet with 512 channels
+     */
+    public static final int MAX_PACKET_LENGTH = HEADER_LENGTH + 512;
+    /**
+     * Options flag to indicate preview data, which should not be used for live output
+     */
+    public static final byte OPTION_PREVIEW_DATA = (byte) 0x80;
+    /**
+     * Options flag to indicate this source stops sending data for the universe
+     */
+    public static final byte OPTION_STREAM_TERMINATED = (byte) 0x40;
+    /**
+     * Options flag to request synchronized output
+     */
+    public static final byte OPTION_FORCE_SYNCHRONIZATION = (byte) 0x20;
     /**
      * sACN Constants
      */
@@ -23,9 +51,20 @@ public class SACNPacket {
     private static final int FRAMING_VECTOR = 0x00000002;
     private static final byte DMP_VECTOR = 0x02;
     private static final byte ADDRESS_TYPE_DATA_TYPE = (byte) 0xa1;
-    private static final String sourceName = "";
-    private static byte sequenceNumber = 0;
-    private static byte[] cid;
+    private static final int SOURCE_NAME_LENGTH = 64;
+    private static final int ROOT_LAYER_OFFSET = 16;
+    private static final int CID_OFFSET = 22;
+    private static final int CID_LENGTH = 16;
+    private static final int FRAMING_LAYER_OFFSET = 38;
+    private static final int DMP_LAYER_OFFSET = 115;
+    private static final int PRIORITY_OFFSET = 108;
+    private static final int SEQUENCE_OFFSET = 111;
+    private static final int OPTIONS_OFFSET = 112;
+    private static final int UNIVERSE_OFFSET = 113;
+    private static final int PROPERTY_VALUE_COUNT_OFFSET = 123;
+    private static final SACNSource DEFAULT_SOURCE = new SACNSource();
+    // Multicast addresses are cached per block of 256 universes, a block is created on first use
+    private static final InetAddress[][] MULTICAST_ADDRESSES = new InetAddress[(63999 >> 8) + 1][];
 
     private SACNPacket() {
         // Hide constructor
@@ -39,7 +78,7 @@ public class SACNPacket {
     }
 
     /**
-     * Creates a complete sACN packet with DMX data
+     * Creates a complete sACN packet with DMX data, sent by the library's default source
      *
      * @param dmxData  Array of DMX channel values (1-512 bytes)
      * @param universe DMX universe number (1-63999)
@@ -47,85 +86,338 @@ public class SACNPacket {
      * @return Complete sACN packet ready for transmission
      */
     public static byte[] createSACNPacket(byte[] dmxData, int universe, int priority) {
-        if (dmxData == null || dmxData.length == 0 || dmxData.length > 512) {
-            throw new IllegalArgumentException("DMX data must be 1-512 bytes");
+        return createSACNPacket(DEFAULT_SOURCE, dmxData, universe, priority);
+    }
+
+    /**
+     * Convenience method with default priority (100)
+     *
+     * @param dmxData  data
+     * @param universe universe id
+     * @return byte array with sACN packet
+     */
+    public static byte[] createSACNPacket(byte[] dmxData, int universe) {
+        return createSACNPacket(dmxData, universe, DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Creates a complete sACN packet with DMX data, using the CID, source name and sequence number of the given source
+     *
+     * @param source   {@link SACNSource}
+     * @param dmxData  Array of DMX channel values (1-512 bytes)
+     * @param universe DMX universe number (1-63999)
+     * @param priority Priority level (0-200, default 100)
+     * @return Complete sACN packet ready for transmission
+     */
+    public static byte[] createSACNPacket(SACNSource source, byte[] dmxData, int universe, int priority) {
+        validateDmxData(dmxData, dmxData == null ? 0 : dmxData.length);
+        validateUniverse(universe);
+        validatePriority(priority);
+
+        // Standard sACN packet for 512 channels is 638 bytes total
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + dmxData.length);
+        writeSACNHeader(buffer, 0, source.getCidBytes(), toSourceNameBytes(source.getSourceName()), priority, universe);
+        writeSACNData(buffer, 0, source.nextSequenceNumber(universe), (byte) 0, dmxData, dmxData.length);
+
+        return buffer.array();
+    }
+
+    /**
+     * Get the multicast address of a universe, 239.255.hi.lo with the high and low byte of the universe.
+     * The addresses are cached, so sending a packet doesn't create a new address.
+     *
+     * @param universe DMX universe number (1-63999)
+     * @return multicast address
+     */
+    public static InetAddress getMulticastAddress(int universe) {
+        validateUniverse(universe);
+        var block = MULTICAST_ADDRESSES[universe >> 8];
+        if (block == null) {
+            // Racing threads create the same immutable addresses, so no lock is needed
+            block = new InetAddress[256];
+            MULTICAST_ADDRESSES[universe >> 8] = block;
         }
-        if (universe < 1 || universe > 63999) {
-            throw new IllegalArgumentException("Universe must be 1-63999");
+        var address = block[universe & 0xFF];
+        if (address == null) {
+            try {
+                address = InetAddress.getByAddress(new byte[]{(byte) 239, (byte) 255, (byte) (universe >> 8), (byte) universe});
+            } catch (UnknownHostException e) {
+                // Only thrown for an invalid length of the address
+                throw new IllegalStateException(e);
+            }
+            block[universe & 0xFF] = address;
         }
-        if (priority < 0 || priority > 200) {
-            throw new IllegalArgumentException("Priority must be 0-200");
+        return address;
+    }
+
+    /**
+     * Check if the given received data is an sACN data packet with DMX data (start code 0), without copying it
+     *
+     * @param packet received data
+     * @param length number of received bytes
+     * @return true if the data is an sACN data packet
+     */
+    public static boolean isSACNDataPacket(byte[] packet, int length) {
+        if (packet == null || length < HEADER_LENGTH || length > packet.length) {
+            return false;
+        }
+        if (getShort(packet, 0) != 0x0010 || getShort(packet, 2) != 0) {
+            return false;
+        }
+        for (int i = 0; i < ACN_PACKET_IDENTIFIER.length; i++) {
+            if (packet[4 + i] != ACN_PACKET_IDENTIFIER[i]) {
+                return false;
+            }
         }
+        return getInt(packet, ROOT_LAYER_OFFSET + 2) == ROOT_VECTOR
+                && getInt(packet, FRAMING_LAYER_OFFSET + 2) == FRAMING_VECTOR
+                && packet[DMP_LAYER_OFFSET + 2] == DMP_VECTOR
+                && packet[HEADER_LENGTH - 1] == 0;
+    }
 
-        // Calculate packet size more carefully
-        // Standard sACN packet for 512 channels should be 638 bytes total
-        int dmxPayloadSize = dmxData.length + 1; // +1 for start code
+    /**
+     * Get the universe of an sACN data packet
+     *
+     * @param packet sACN data packet
+     * @return universe (1-63999)
+     */
+    public static int getUniverse(byte[] packet) {
+        return getShort(packet, UNIVERSE_OFFSET);
+    }
 
-        // DMP layer: 10 bytes header + DMX payload
-        int dmpLayerSize = 10 + dmxPayloadSize;
+    /**
+     * Get the priority of an sACN data packet
+     *
+     * @param packet sACN data packet
+     * @return priority (0-200)
+     */
+    public static int getPriority(byte[] packet) {
+        return packet[PRIORITY_OFFSET] & 0xFF;
+    }
 
-        // Framing layer: 77 bytes header + DMP layer
-        int framingLayerSize = 77 + dmpLayerSize;
+    /**
+     * Get a copy of the 16-byte CID of an sACN data packet, identifying its source
+     *
+     * @param packet sACN data packet
+     * @return CID
+     */
+    public static byte[] getCid(byte[] packet) {
+        return Arrays.copyOfRange(packet, CID_OFFSET, CID_OFFSET + CID_LENGTH);
+    }
 
-        // Root layer: 22 bytes header + Framing layer
-        int rootLayerSize = 22 + framingLayerSize;
+    /**
+     * Check if an sACN data packet was sent by the source with the given CID, without allocating memory
+     *
+     * @param packet sACN data packet
+     * @param cid    16-byte CID
+     * @return true if the CID of the packet is equal
+     */
+    public static boolean hasCid(byte[] packet, byte[] cid) {
+        return Arrays.equals(packet, CID_OFFSET, CID_OFFSET + CID_LENGTH, cid, 0, cid.length);
+    }
 
-        // Complete packet: 16 bytes preamble + Root layer
-        int totalPacketSize = 16 + rootLayerSize;
+    /**
+     * Get the sequence number of an sACN data packet
+     *
+     * @param packet sACN data packet
+     * @return sequence number
+     */
+    public static byte getSequenceNumber(byte[] packet) {
+        return packet[SEQUENCE_OFFSET];
+    }
 
-        ByteBuffer buffer = ByteBuffer.allocate(totalPacketSize);
+    /**
+     * Get the options flags of an sACN data packet
+     *
+     * @param packet sACN data packet
+     * @return options, see {@link #OPTION_PREVIEW_DATA} and others
+     */
+    public static byte getOptions(byte[] packet) {
+        return packet[OPTIONS_OFFSET];
+    }
 
-        // === PREAMBLE (16 bytes) ===
-        buffer.put(new byte[16]); // 16 bytes of 0x00
+    /**
+     * Get the number of DMX values in an sACN data packet, limited to the received data
+     *
+     * @param packet sACN data packet
+     * @param length number of received bytes
+     * @return number of DMX values (0-512), which start at {@link #HEADER_LENGTH}
+     */
+    public static int getDmxDataLength(byte[] packet, int length) {
+        // The property value count includes the start code
+        int dmxLength = getShort(packet, PROPERTY_VALUE_COUNT_OFFSET) - 1;
+        return Math.max(0, Math.min(Math.min(dmxLength, length - HEADER_LENGTH), 512));
+    }
 
-        // === ROOT LAYER (22 bytes header) ===
-        buffer.putShort((short) 0x0010); // Post-amble size (2 bytes)
-        buffer.put(ACN_PACKET_IDENTIFIER); // 12 bytes
-        buffer.putShort((short) (0x7000 | (rootLayerSize & 0x0FFF))); // Flags (0x7) + Length (2 bytes)
-        buffer.putInt(ROOT_VECTOR); // Vector (4 bytes)
-        buffer.put(cid); // 16-byte CID
+    /**
+     * Check if the given received buffer is an sACN data packet with DMX data (start code 0),
+     * reading from index 0 without changing the position
+     *
+     * @param packet received data, e.g. a direct buffer
+     * @param length number of received bytes
+     * @return true if the data is an sACN data packet
+     */
+    public static boolean isSACNDataPacket(ByteBuffer packet, int length) {
+        if (packet == null || length < HEADER_LENGTH || length > packet.capacity()) {
+            return false;
+        }
+        if (packet.getShort(0) != 0x0010 || packet.getShort(2) != 0) {
+            return false;
+        }
+        for (int i = 0; i < ACN_PACKET_IDENTIFIER.length; i++) {
+            if (packet.get(4 + i) != ACN_PACKET_IDENTIFIER[i]) {
+                return false;
+            }
+        }
+        return packet.getInt(ROOT_LAYER_OFFSET + 2) == ROOT_VECTOR
+                && packet.getInt(FRAMING_LAYER_OFFSET + 2) == FRAMING_VECTOR
+                && packet.get(DMP_LAYER_OFFSET + 2) == DMP_VECTOR
+                && packet.get(HEADER_LENGTH - 1) == 0;
+    }
 
-        // === FRAMING LAYER (77 bytes header) ===
-        buffer.putShort((short) (0x7000 | (framingLayerSize & 0x0FFF))); // Flags + Length (2 bytes)
-        buffer.putInt(FRAMING_VECTOR); // Vector (4 bytes)
+    /**
+     * Get the options flags of an sACN data packet in a buffer
+     *
+     * @param packet sACN data packet
+     * @return options, see {@link #OPTION_PREVIEW_DATA} and others
+     */
+    public static byte getOptions(ByteBuffer packet) {
+        return packet.get(OPTIONS_OFFSET);
+    }
 
-        // Source name (64 bytes, null-terminated)
-        byte[] sourceNameBytes = new byte[64];
-        byte[] nameBytes = sourceName.getBytes();
-        System.arraycopy(nameBytes, 0, sourceNameBytes, 0,
-                Math.min(nameBytes.length, 63)); // Leave room for null terminator
-        buffer.put(sourceNameBytes);
+    /**
+     * Get the universe of an sACN data packet in a buffer
+     *
+     * @param packet sACN data packet, with big-endian byte order
+     * @return universe (1-63999)
+     */
+    public static int getUniverse(ByteBuffer packet) {
+        return packet.getShort(UNIVERSE_OFFSET) & 0xFFFF;
+    }
+
+    /**
+     * Get the number of DMX values in an sACN data packet in a buffer, limited to the received data
+     *
+     * @param packet sACN data packet, with big-endian byte order
+     * @param length number of received bytes
+     * @return number of DMX values (0-512), which start at {@link #HEADER_LENGTH}
+     */
+    public static int getDmxDataLength(ByteBuffer packet, int length) {
+        int dmxLength = (packet.getShort(PROPERTY_VALUE_COUNT_OFFSET) & 0xFFFF) - 1;
+        return Math.max(0, Math.min(Math.min(dmxLength, length - HEADER_LENGTH), 512));
+    }
+
+    private static int getShort(byte[] packet, int offset) {
+        return ((packet[offset] & 0xFF) << 8) | (packet[offset + 1] & 0xFF);
+    }
+
+    private static int getInt(byte[] packet, int offset) {
+        return (getShort(packet, offset) << 16) | getShort(packet, offset + 2);
+    }
 
-        buffer.put((byte) priority); // Priority (1 byte)
-        buffer.putShort((short) 0); // Synchronization Address (2 bytes, reserved)
-        buffer.put(sequenceNumber++); // Sequence Number (1 byte)
-        buffer.put((byte) 0); // Options (1 byte)
-        buffer.putShort((short) universe); // Universe (2 bytes)
+    /**
+     * Writes the parts of an sACN data packet which don't change between frames: the preamble, root layer,
+     * framing layer and DMP layer headers, and the start code, at the given offset.
+     * The layer lengths, sequence number, options and property value count are patched per frame.
+     */
+    static void writeSACNHeader(ByteBuffer target, int offset, byte[] cid, byte[] sourceName, int priority, int universe) {
+        // === PREAMBLE ===
+        target.putShort(offset, (short) 0x0010); // Preamble size (2 bytes)
+        target.putShort(offset + 2, (short) 0); // Post-amble size (2 bytes)
+        target.put(offset + 4, ACN_PACKET_IDENTIFIER); // 12 bytes
 
-        // === DMP LAYER (10 bytes header) ===
-        buffer.putShort((short) (0x7000 | (dmpLayerSize & 0x0FFF))); // Flags + Length (2 bytes)
-        buffer.put(DMP_VECTOR); // Vector (1 byte)
-        buffer.put(ADDRESS_TYPE_DATA_TYPE); // Address Type & Data Type (1 byte)
-        buffer.putShort((short) 0); // First Property Address (2 bytes)
-        buffer.putShort((short) 1); // Address Increment (2 bytes)
-        buffer.putShort((short) dmxPayloadSize); // Property Value Count (2 bytes)
+        // === ROOT LAYER ===
+        target.putInt(offset + ROOT_LAYER_OFFSET + 2, ROOT_VECTOR); // Vector (4 bytes)
+        target.put(offset + ROOT_LAYER_OFFSET + 6, cid); // 16-byte CID
+
+        // === FRAMING LAYER ===
+        target.putInt(offset + FRAMING_LAYER_OFFSET + 2, FRAMING_VECTOR); // Vector (4 bytes)
+        target.put(offset + FRAMING_LAYER_OFFSET + 6, sourceName); // Source name (64 bytes, null-terminated)
+        target.put(offset + PRIORITY_OFFSET, (byte) priority); // Priority (1 byte)
+        target.putShort(offset + PRIORITY_OFFSET + 1, (short) 0); // Synchronization Address (2 bytes)
+        target.putShort(offset + UNIVERSE_OFFSET, (short) universe); // Universe (2 bytes)
+
+        // === DMP LAYER ===
+        target.put(offset + DMP_LAYER_OFFSET + 2, DMP_VECTOR); // Vector (1 byte)
+        target.put(offset + DMP_LAYER_OFFSET + 3, ADDRESS_TYPE_DATA_TYPE); // Address Type & Data Type (1 byte)
+        target.putShort(offset + DMP_LAYER_OFFSET + 4, (short) 0); // First Property Address (2 bytes)
+        target.putShort(offset + DMP_LAYER_OFFSET + 6, (short) 1); // Address Increment (2 bytes)
 
         // === DMX DATA ===
-        buffer.put((byte) 0); // Start Code (1 byte)
-        buffer.put(dmxData); // DMX channel data
+        target.put(offset + HEADER_LENGTH - 1, (byte) 0); // Start Code (1 byte)
+    }
 
-        return buffer.array();
+    /**
+     * Patches the per-frame fields of an sACN data packet of which the header was already written at the given offset.
+     *
+     * @return total length of the packet
+     */
+    static int writeSACNData(ByteBuffer target, int offset, byte sequence, byte options, byte[] dmxData, int length) {
+        target.put(offset + HEADER_LENGTH, dmxData, 0, length);
+        return writeSACNLengths(target, offset, sequence, options, length);
     }
 
     /**
-     * Convenience method with default priority (100)
+     * Patches the per-frame fields and the DMX data copied from another buffer, e.g. a received packet,
+     * without changing the position of either buffer.
      *
-     * @param dmxData  data
-     * @param universe universe id
-     * @return byte array with sACN packet
+     * @return total length of the packet
      */
-    public static byte[] createSACNPacket(byte[] dmxData, int universe) {
-        return createSACNPacket(dmxData, universe, 100);
+    static int writeSACNData(ByteBuffer target, int offset, byte sequence, byte options, ByteBuffer dmxData, int dataOffset, int length) {
+        target.put(offset + HEADER_LENGTH, dmxData, dataOffset, length);
+        return writeSACNLengths(target, offset, sequence, options, length);
+    }
+
+    private static int writeSACNLengths(ByteBuffer target, int offset, byte sequence, byte options, int length) {
+        int packetLength = HEADER_LENGTH + length;
+
+        // Flags (0x7) + Length of each layer, counted from the start of the layer
+        target.putShort(offset + ROOT_LAYER_OFFSET, (short) (0x7000 | ((packetLength - ROOT_LAYER_OFFSET) & 0x0FFF)));
+        target.putShort(offset + FRAMING_LAYER_OFFSET, (short) (0x7000 | ((packetLength - FRAMING_LAYER_OFFSET) & 0x0FFF)));
+        target.putShort(offset + DMP_LAYER_OFFSET, (short) (0x7000 | ((packetLength - DMP_LAYER_OFFSET) & 0x0FFF)));
+
+        target.put(offset + SEQUENCE_OFFSET, sequence);
+        target.put(offset + OPTIONS_OFFSET, options);
+        target.putShort(offset + PROPERTY_VALUE_COUNT_OFFSET, (short) (length + 1)); // +1 for start code
+
+        return packetLength;
+    }
+
+    /**
+     * Convert a source name to the 64-byte, null-terminated UTF-8 field used in the framing layer
+     */
+    static byte[] toSourceNameBytes(String sourceName) {
+        byte[] sourceNameBytes = new byte[SOURCE_NAME_LENGTH];
+        if (sourceName != null) {
+            byte[] nameBytes = sourceName.getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(nameBytes, 0, sourceNameBytes, 0,
+                    Math.min(nameBytes.length, SOURCE_NAME_LENGTH - 1)); // Leave room for null terminator
+        }
+        return sourceNameBytes;
+    }
+
+    static void validateDmxData(byte[] dmxData, int length) {
+        if (dmxData == null || length <= 0 || length > 512 || length > dmxData.length) {
+            throw new IllegalArgumentException("DMX data must be 1-512 bytes");
+        }
+    }
+
+    static void validateDmxData(ByteBuffer dmxData, int dataOffset, int length) {
+        if (dmxData == null || length <= 0 || length > 512 || dataOffset < 0 || dataOffset + length > dmxData.capacity()) {
+            throw new IllegalArgumentException("DMX data must be 1-512 bytes");
+        }
+    }
+
+    static void validateUniverse(int universe) {
+        if (universe < 1 || universe > 63999) {
+            throw new IllegalArgumentException("Universe must be 1-63999");
+        }
+    }
+
+    static void validatePriority(int priority) {
+        if (priority < 0 || priority > 200) {
+            throw new IllegalArgumentException("Priority must be 0-200");
+        }
     }
 
     /**
@@ -133,7 +425,7 @@ public class SACNPacket {
      *
      * @param uuid uuid
      */
-    private static byte[] uuidToBytes(UUID uuid) {
+    static byte[] uuidToBytes(UUID uuid) {
         ByteBuffer buffer = ByteBuffer.allocate(16);
         buffer.putLong(uuid.getMostSignificantBits());
         buffer.putLong(uuid.getLeastSignificantBits());
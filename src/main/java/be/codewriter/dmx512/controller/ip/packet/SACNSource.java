@@ -0,0 +1,140 @@
+package be.codewriter.dmx512.controller.ip.packet;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An sACN (E1.31) source, identified by its CID and source name.
+ * Keeps a separate sequence number for each universe, so packets of different universes and threads don't
+ * interleave into one sequence. The counters are lock-free, so one source can be shared by many controllers.
+ * They are allocated per block of 256 universes when a universe of the block is first sent, so a source
+ * only takes memory for the universes it uses.
+ */
+public class SACNSource {
+    /**
+     * Source name used when none is provided
+     */
+    public static final String DEFAULT_SOURCE_NAME = "DMX512 Java";
+    private static final int MAX_UNIVERSE = 63999;
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final UUID cid;
+    private final byte[] cidBytes;
+    private final String sourceName;
+    private final AtomicReferenceArray<AtomicIntegerArray> sequenceNumbers =
+            new AtomicReferenceArray<>((MAX_UNIVERSE >> PAGE_BITS) + 1);
+
+    /**
+     * Constructor for a source with a random CID and the default source name
+     */
+    public SACNSource() {
+        this(UUID.randomUUID(), DEFAULT_SOURCE_NAME);
+    }
+
+    /**
+     * Constructor for a source with a random CID and the given source name
+     *
+     * @param sourceName name of the source, truncated to 63 bytes in the packets
+     */
+    public SACNSource(String sourceName) {
+        this(UUID.randomUUID(), sourceName);
+    }
+
+    /**
+     * Constructor for a source with the given CID and source name.
+     * A fixed CID should be used when receivers must recognize the source after a restart.
+     *
+     * @param cid        component identifier
+     * @param sourceName name of the source, truncated to 63 bytes in the packets
+     */
+    public SACNSource(UUID cid, String sourceName) {
+        if (cid == null) {
+            throw new IllegalArgumentException("CID must be defined");
+        }
+        this.cid = cid;
+        this.cidBytes = SACNPacket.uuidToBytes(cid);
+        this.sourceName = sourceName == null ? "" : sourceName;
+    }
+
+    /**
+     * Get the next sequence number for the given universe
+     *
+     * @param universe DMX universe number (1-63999)
+     * @return sequence number
+     */
+    public byte nextSequenceNumber(int universe) {
+        SACNPacket.validateUniverse(universe);
+        var page = sequenceNumbers.get(universe >> PAGE_BITS);
+        if (page == null) {
+            // Only one of the threads which create the same page at the same time installs it
+            sequenceNumbers.compareAndSet(universe >> PAGE_BITS, null, new AtomicIntegerArray(PAGE_SIZE));
+            page = sequenceNumbers.get(universe >> PAGE_BITS);
+        }
+        return (byte) page.getAndIncrement(universe & (PAGE_SIZE - 1));
+    }
+
+    /**
+     * Create a reusable frame for the given universe, sent by this source
+     *
+     * @param universe DMX universe number (1-63999)
+     * @param priority Priority level (0-200)
+     * @param direct   use a direct buffer
+     * @return {@link SACNFrame}
+     */
+    public SACNFrame createFrame(int universe, int priority, boolean direct) {
+        return new SACNFrame(universe, priority, cidBytes, sourceName, direct);
+    }
+
+    /**
+     * Update the given frame with the next sequence number of its universe and the given data
+     *
+     * @param frame   {@link SACNFrame} created by this source
+     * @param dmxData Array of DMX channel values
+     * @param length  number of values to use (1-512)
+     */
+    public void update(SACNFrame frame, byte[] dmxData, int length) {
+        frame.update(nextSequenceNumber(frame.getUniverse()), (byte) 0, dmxData, length);
+    }
+
+    /**
+     * Update the given frame with the next sequence number of its universe and the data of another buffer
+     *
+     * @param frame      {@link SACNFrame} created by this source
+     * @param dmxData    buffer containing the DMX channel values, its position is not changed
+     * @param dataOffset index of the first value in the buffer
+     * @param length     number of values to use (1-512)
+     */
+    public void update(SACNFrame frame, ByteBuffer dmxData, int dataOffset, int length) {
+        frame.update(nextSequenceNumber(frame.getUniverse()), (byte) 0, dmxData, dataOffset, length);
+    }
+
+    /**
+     * Get the CID
+     *
+     * @return CID as {@link UUID}
+     */
+    public UUID getCid() {
+        return cid;
+    }
+
+    /**
+     * Get the CID as used in the packets
+     *
+     * @return 16-byte array
+     */
+    public byte[] getCidBytes() {
+        return cidBytes.clone();
+    }
+
+    /**
+     * Get the source name
+     *
+     * @return source name
+     */
+    public String getSourceName() {
+        return sourceName;
+    }
+}
@@ -2,8 +2,11 @@ package be.codewriter.dmx512.controller.serial;
 
 import be.codewriter.dmx512.controller.DMXController;
 import be.codewriter.dmx512.controller.change.DMXStatusChangeMessage;
-import be.codewriter.dmx512.controller.serial.builder.EnttecDMXUSBProBuilder;
+import be.codewriter.dmx512.controller.serial.builder.EnttecDMXUSBProEncoder;
+import be.codewriter.dmx512.controller.serial.builder.EnttecDMXUSBProParser;
 import be.codewriter.dmx512.model.DMXUniverse;
+import be.codewriter.dmx512.tool.PrecisionTimer;
+import be.codewriter.dmx512.tool.TimingStatistics;
 import com.fazecast.jSerialComm.SerialPort;
 import com.fazecast.jSerialComm.SerialPortDataListener;
 import com.fazecast.jSerialComm.SerialPortEvent;
@@ -12,10 +15,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * DMX Serial Controller.
@@ -30,6 +36,14 @@ public class DMXSerialController implements DMXController {
      * Maximum number of DMX channels
      */
     public static final int MAX_DMX_CHANNELS = 512;
+    /**
+     * Default frame rate for the continuous transmission
+     */
+    public static final double DEFAULT_FRAME_RATE = 20;
+    /**
+     * Minimum time between two breaks in microseconds, as defined in DMX512-A
+     */
+    public static final int DMX_MIN_BREAK_TO_BREAK_US = 1204;
     private static final Logger LOGGER = LoggerFactory.getLogger(DMXSerialController.class.getName());
     /**
      * Minimum break time in microseconds
@@ -44,21 +58,32 @@ public class DMXSerialController implements DMXController {
      */
     private static final int DMX_PACKET_TIME_US = 44;
     /**
-     * Interval between DMX message refresh on the serial connection
+     * Zero slots to pad a frame to 512 channels, never written
      */
-    private static final int DMX_FRAME_INTERVAL_MS = 50;
+    private static final byte[] PADDING = new byte[MAX_DMX_CHANNELS];
 
     private final String portName;
     private final SerialProtocol protocol;
     private final AtomicBoolean shouldTransmit = new AtomicBoolean(false);
-    private final ReadWriteLock dataLock = new ReentrantReadWriteLock();
-    private final byte[] currentDmxData = new byte[MAX_DMX_CHANNELS];
+    private final TripleFrameBuffer frames = new TripleFrameBuffer();
+    private final EnttecDMXUSBProEncoder enttecEncoder = new EnttecDMXUSBProEncoder();
+    private final byte[] directFrame = new byte[MAX_DMX_CHANNELS + 1];
+    private final PrecisionTimer timer = new PrecisionTimer();
+    private final Object outputLock = new Object();
+    private final EnttecDMXUSBProReceiver enttecReceiver;
+    private final byte[] readBuffer = new byte[1024];
     private SerialPort serialPort;
     private OutputStream outputStream;
     private boolean connected = false;
     // Continuous transmission support
-    private Thread transmissionThread;
-    private volatile boolean dataChanged = false;
+    private volatile Thread transmissionThread;
+    private volatile long frameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / DEFAULT_FRAME_RATE);
+    private volatile boolean adaptiveFrameRate = false;
+    private volatile long minimumFrameSpacingNanos = 0;
+    private volatile int interSlotSpacingUs = 0;
+    private volatile boolean externallyDriven = false;
+    private volatile EnttecWidgetParameters widgetParameters;
+    private volatile CompletableFuture<EnttecWidgetParameters> pendingWidgetParameters;
 
     /**
      * Constructor for a serial (USB) controller on the given port name with the Enttec protocol.
@@ -78,6 +103,7 @@ public class DMXSerialController implements DMXController {
     public DMXSerialController(String portName, SerialProtocol protocol) {
         this.portName = portName;
         this.protocol = protocol;
+        this.enttecReceiver = new EnttecDMXUSBProReceiver(this::onDataReceived, this::onWidgetParameters);
 
         connect();
     }
@@ -139,7 +165,13 @@ public class DMXSerialController implements DMXController {
             connected = true;
 
             setupDisconnectListener();
-            startContinuousTransmission();
+            if (!externallyDriven) {
+                startContinuousTransmission();
+            }
+            if (protocol == SerialProtocol.ENTTEC_USB_PRO) {
+                // The refresh rate of the widget defines the transmission rate
+                requestWidgetParameters();
+            }
             notifyListeners(DMXStatusChangeMessage.CONNECTED);
 
             return true;
@@ -152,13 +184,17 @@ public class DMXSerialController implements DMXController {
 
     @Override
     public synchronized void render(DMXUniverse universe) {
-        render(universe.getId(), universe.getData());
+        render(universe.snapshot(), universe.getLength());
     }
 
     @Override
     public synchronized void render(int universe, byte[] data) {
+        render(data, data.length);
+    }
+
+    private void render(byte[] data, int length) {
         if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("DMX message: {}", HexFormat.of().formatHex(data));
+            LOGGER.debug("DMX message: {}", HexFormat.of().formatHex(data, 0, length));
         }
 
         if (!connected || outputStream == null) {
@@ -166,26 +202,188 @@ public class DMXSerialController implements DMXController {
             return;
         }
 
-        // Update the current DMX data that's being continuously transmitted
-        dataLock.writeLock().lock();
+        // Publish the data to the transmission thread, render is synchronized so there is only one producer
+        frames.publish(data, Math.min(length, MAX_DMX_CHANNELS));
+
+        // Wake up the transmission thread, so the new data is sent as soon as allowed
+        var thread = transmissionThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Set the frame rate of the continuous transmission, the rate at which unchanged data is refreshed.
+     * Rendered data is sent immediately, it doesn't wait for the next frame.
+     * The rate is limited to what the DMX line can carry for the number of slots which are sent,
+     * see {@link #getMinimumFramePeriodNanos(int)}.
+     *
+     * @param frameRate frames per second, e.g. 44 or 30
+     */
+    public void setFrameRate(double frameRate) {
+        if (frameRate <= 0 || frameRate > TimeUnit.SECONDS.toMicros(1) / (double) DMX_MIN_BREAK_TO_BREAK_US) {
+            throw new IllegalArgumentException("Frame rate must be between 0 and "
+                    + (TimeUnit.SECONDS.toMicros(1) / DMX_MIN_BREAK_TO_BREAK_US));
+        }
+        frameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / frameRate);
+    }
+
+    /**
+     * Get the configured frame rate of the continuous transmission
+     *
+     * @return frames per second
+     */
+    public double getFrameRate() {
+        return TimeUnit.SECONDS.toNanos(1) / (double) frameIntervalNanos;
+    }
+
+    /**
+     * Enable or disable the adaptive frame rate.
+     * When enabled, only the slots of the last rendered data are sent and the frames are sent as fast as allowed
+     * for that number of slots, instead of at the configured frame rate.
+     * Protocols which always pad the data to 512 slots are limited to the rate of a full universe.
+     *
+     * @param adaptiveFrameRate true to enable
+     */
+    public void setAdaptiveFrameRate(boolean adaptiveFrameRate) {
+        this.adaptiveFrameRate = adaptiveFrameRate;
+    }
+
+    /**
+     * Check if the adaptive frame rate is enabled
+     *
+     * @return true if enabled
+     */
+    public boolean isAdaptiveFrameRate() {
+        return adaptiveFrameRate;
+    }
+
+    /**
+     * Set the minimum time between the start of two frames, to limit the rate for receivers which can't handle
+     * frames as fast as the DMX line allows. The legal minimum period is always respected.
+     *
+     * @param minimumFrameSpacing minimum time between two frames, zero to only use the legal minimum
+     */
+    public void setMinimumFrameSpacing(Duration minimumFrameSpacing) {
+        if (minimumFrameSpacing == null || minimumFrameSpacing.isNegative()) {
+            throw new IllegalArgumentException("Minimum frame spacing must be defined and positive");
+        }
+        this.minimumFrameSpacingNanos = minimumFrameSpacing.toNanos();
+    }
+
+    /**
+     * Get the minimum time between the start of two frames, as configured
+     *
+     * @return minimum frame spacing
+     */
+    public Duration getMinimumFrameSpacing() {
+        return Duration.ofNanos(minimumFrameSpacingNanos);
+    }
+
+    /**
+     * Set the time between two slots for the {@link SerialProtocol#FTDI_CHIP_DIRECT} protocol, for receivers which
+     * need a mark between the slots. By default, the frame is written at once and the slots follow each other
+     * at the speed of the baud rate.
+     *
+     * @param interSlotSpacing time between two slots, zero to write the frame at once
+     */
+    public void setInterSlotSpacing(Duration interSlotSpacing) {
+        if (interSlotSpacing == null || interSlotSpacing.isNegative() || interSlotSpacing.toSeconds() >= 1) {
+            throw new IllegalArgumentException("Inter-slot spacing must be defined, positive and less than a second");
+        }
+        this.interSlotSpacingUs = (int) (interSlotSpacing.toNanos() / 1_000);
+    }
+
+    /**
+     * Get the time between two slots for the {@link SerialProtocol#FTDI_CHIP_DIRECT} protocol
+     *
+     * @return inter-slot spacing
+     */
+    public Duration getInterSlotSpacing() {
+        return Duration.ofNanos(interSlotSpacingUs * 1_000L);
+    }
+
+    /**
+     * Request the parameters of an Enttec DMX USB Pro widget.
+     * The returned future is completed when the widget replies.
+     *
+     * @return future with the {@link EnttecWidgetParameters}
+     * @throws IllegalStateException if the protocol doesn't use an Enttec Pro widget
+     */
+    public CompletableFuture<EnttecWidgetParameters> requestWidgetParameters() {
+        var pending = new CompletableFuture<EnttecWidgetParameters>();
+        pendingWidgetParameters = pending;
         try {
-            // Copy new data to current buffer
-            int copyLength = Math.min(data.length, MAX_DMX_CHANNELS);
-            System.arraycopy(data, 0, currentDmxData, 0, copyLength);
-
-            // Zero out any remaining channels if the new data is shorter
-            if (copyLength < MAX_DMX_CHANNELS) {
-                for (int i = copyLength; i < MAX_DMX_CHANNELS; i++) {
-                    currentDmxData[i] = 0;
-                }
-            }
+            // The data is the size of the user configuration to return, which isn't used
+            sendEnttecMessage(EnttecDMXUSBProParser.LABEL_GET_WIDGET_PARAMETERS, new byte[]{0, 0});
+        } catch (IOException e) {
+            pending.completeExceptionally(e);
+        }
+        return pending;
+    }
+
+    /**
+     * Get the parameters of the Enttec DMX USB Pro widget, which were received last
+     *
+     * @return {@link EnttecWidgetParameters} or null if not received
+     */
+    public EnttecWidgetParameters getWidgetParameters() {
+        return widgetParameters;
+    }
 
-            dataChanged = true;
-        } finally {
-            dataLock.writeLock().unlock();
+    /**
+     * Set the receive mode of an Enttec DMX USB Pro widget.
+     * Received data is applied to the image returned by {@link #getReceivedData()},
+     * and the listeners are notified with {@link DMXStatusChangeMessage#DATA_RECEIVED}.
+     *
+     * @param onChange true to only receive the changed slots, false to receive every packet
+     * @return true if the mode was sent to the widget
+     * @throws IllegalStateException if the protocol doesn't use an Enttec Pro widget
+     */
+    public boolean setReceiveOnChange(boolean onChange) {
+        try {
+            sendEnttecMessage(EnttecDMXUSBProParser.LABEL_SET_RECEIVE_MODE, new byte[]{(byte) (onChange ? 1 : 0)});
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("Failed to set the receive mode: {}", e.getMessage());
+            return false;
         }
     }
 
+    /**
+     * Get the DMX data received by an Enttec DMX USB Pro widget
+     *
+     * @return copy of the received data
+     */
+    public byte[] getReceivedData() {
+        return enttecReceiver.getData();
+    }
+
+    /**
+     * Get the statistics of the break, mark after break and inter-slot delays
+     *
+     * @return {@link TimingStatistics}
+     */
+    public TimingStatistics getTimingStatistics() {
+        return timer.getStatistics();
+    }
+
+    /**
+     * Get the minimum period between two frames with the given number of slots:
+     * the break, mark after break, start code and slots, but never shorter than the minimum break-to-break time.
+     * For a full universe of 512 slots this is 22.7ms or 44 frames per second.
+     *
+     * @param slots number of slots after the start code (0-512)
+     * @return period in nanoseconds
+     */
+    public static long getMinimumFramePeriodNanos(int slots) {
+        if (slots < 0 || slots > MAX_DMX_CHANNELS) {
+            throw new IllegalArgumentException("Number of slots must be between 0 and " + MAX_DMX_CHANNELS);
+        }
+        long frameTimeUs = DMX_BREAK_TIME_US + DMX_MAB_TIME_US + (long) DMX_PACKET_TIME_US * (slots + 1);
+        return TimeUnit.MICROSECONDS.toNanos(Math.max(DMX_MIN_BREAK_TO_BREAK_US, frameTimeUs));
+    }
+
     /**
      * Close the connection to the DMX interface
      */
@@ -245,51 +443,91 @@ public class DMXSerialController implements DMXController {
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
+            transmissionThread = null;
         }
         LOGGER.info("Stopped continuous DMX transmission thread for port {}", portName);
     }
 
     /**
-     * Continuous transmission loop - runs in background thread
+     * Hand over the transmission to a {@link DMXSerialOutputManager}, or take it back.
+     * While externally driven, the controller doesn't run its own transmission thread,
+     * and frames are only sent with {@link #transmitFrame()}.
+     *
+     * @param externallyDriven true when driven by a manager
+     */
+    synchronized void setExternallyDriven(boolean externallyDriven) {
+        if (this.externallyDriven == externallyDriven) {
+            return;
+        }
+        this.externallyDriven = externallyDriven;
+        if (externallyDriven) {
+            stopContinuousTransmission();
+        } else if (isConnected()) {
+            startContinuousTransmission();
+        }
+    }
+
+    /**
+     * Check if the transmission is driven by a {@link DMXSerialOutputManager}
+     *
+     * @return true when driven by a manager
+     */
+    boolean isExternallyDriven() {
+        return externallyDriven;
+    }
+
+    /**
+     * Send one frame with the latest rendered data, or the previous frame again when nothing was rendered.
+     * Must only be called by one thread at a time, and not while the controller runs its own transmission thread.
+     *
+     * @return number of slots which were sent
+     * @throws IOException if the frame could not be written
+     */
+    int transmitFrame() throws IOException {
+        // Take the latest frame if a new one was rendered, otherwise the previous frame is sent again
+        boolean hasNewData = frames.take();
+
+        // Send DMX packet
+        int slots = adaptiveFrameRate ? frames.getLength() : MAX_DMX_CHANNELS;
+        sendDmxPacket(frames.getFrame(), slots);
+
+        if (hasNewData && LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Transmitted updated DMX data");
+        }
+        return slots;
+    }
+
+    /**
+     * Continuous transmission loop - runs in background thread.
+     * Changed data is sent as soon as the minimum spacing after the previous frame has passed, a render wakes up
+     * the thread. Unchanged data is refreshed at the frame rate, see {@link FrameSchedule}.
      */
     private void continuousTransmissionLoop() {
-        byte[] localDataBuffer = new byte[MAX_DMX_CHANNELS];
+        int slots = MAX_DMX_CHANNELS;
+        var schedule = new FrameSchedule(System.nanoTime());
 
         while (shouldTransmit.get() && connected) {
             try {
-                // Copy current data if it has changed
-                boolean hasNewData = false;
-                dataLock.readLock().lock();
-                try {
-                    if (dataChanged) {
-                        System.arraycopy(currentDmxData, 0, localDataBuffer, 0, MAX_DMX_CHANNELS);
-                        dataChanged = false;
-                        hasNewData = true;
+                long now = System.nanoTime();
+                long spacing = getFrameSpacingNanos(slots);
+                boolean newFrame = frames.hasNewFrame();
+                long deadline = schedule.getDeadline(newFrame, spacing, getRefreshIntervalNanos(slots));
+                if (deadline - now > 0) {
+                    // Woken up early by a render, or at the deadline
+                    LockSupport.parkNanos(this, deadline - now);
+                    if (Thread.interrupted()) {
+                        break;
                     }
-                } finally {
-                    dataLock.readLock().unlock();
-                }
-
-                // Send DMX packet
-                sendDmxPacket(localDataBuffer);
-
-                if (hasNewData && LOGGER.isTraceEnabled()) {
-                    LOGGER.trace("Transmitted updated DMX data");
+                    continue;
                 }
 
-                // Wait for next frame
-                Thread.sleep(DMX_FRAME_INTERVAL_MS);
-
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+                slots = transmitFrame();
+                schedule.sent(now, deadline, spacing, newFrame);
             } catch (IOException e) {
                 LOGGER.error("Error during continuous transmission: {}", e.getMessage());
                 // Short delay before retrying
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
+                parkUntil(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+                if (Thread.interrupted()) {
                     break;
                 }
             }
@@ -298,10 +536,51 @@ public class DMXSerialController implements DMXController {
         LOGGER.debug("Continuous transmission loop ended for port {}", portName);
     }
 
+    private long getFrameSpacingNanos(int slots) {
+        // These protocols always pad the data to a full universe
+        boolean padded = protocol == SerialProtocol.OPEN_DMX_USB || protocol == SerialProtocol.FTDI_CHIP_DIRECT;
+        return Math.max(minimumFrameSpacingNanos, getMinimumFramePeriodNanos(padded ? MAX_DMX_CHANNELS : slots));
+    }
+
+    /**
+     * Get the minimum time between the starts of two frames, used by a {@link DMXSerialOutputManager} to limit
+     * the frames it sends to this controller. This is the frame spacing, or the refresh period of an Enttec widget
+     * when it's longer, as sending faster than the widget refreshes the line is useless.
+     *
+     * @param slots number of slots of the previous frame
+     * @return interval in nanoseconds
+     */
+    long getMinimumFrameIntervalNanos(int slots) {
+        var parameters = widgetParameters;
+        if (protocol == SerialProtocol.ENTTEC_USB_PRO && parameters != null && parameters.refreshRate() > 0) {
+            return Math.max(getFrameSpacingNanos(slots), TimeUnit.SECONDS.toNanos(1) / parameters.refreshRate());
+        }
+        return getFrameSpacingNanos(slots);
+    }
+
+    private long getRefreshIntervalNanos(int slots) {
+        var parameters = widgetParameters;
+        if (protocol == SerialProtocol.ENTTEC_USB_PRO && parameters != null) {
+            // Sending faster than the widget refreshes the line is useless, a rate of 0 is the maximum of the widget
+            return parameters.refreshRate() > 0
+                    ? TimeUnit.SECONDS.toNanos(1) / parameters.refreshRate()
+                    : getFrameSpacingNanos(slots);
+        }
+        return adaptiveFrameRate ? getFrameSpacingNanos(slots) : frameIntervalNanos;
+    }
+
+    private void parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0 && shouldTransmit.get()
+                && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
     /**
      * Send a single DMX packet based on the configured protocol
      */
-    private void sendDmxPacket(byte[] dmxData) throws IOException {
+    private void sendDmxPacket(byte[] dmxData, int length) throws IOException {
         if (!connected || outputStream == null) {
             return;
         }
@@ -309,16 +588,19 @@ public class DMXSerialController implements DMXController {
         try {
             switch (protocol) {
                 case OPEN_DMX_USB:
-                    sendOpenDMXUSB(dmxData);
+                    sendOpenDMXUSB(dmxData, length);
                     break;
                 case FTDI_CHIP_DIRECT:
-                    sendFTDIChipDirect(dmxData);
+                    sendFTDIChipDirect(dmxData, length);
                     break;
                 case ENTTEC_OPEN_DMX:
-                    sendEnttecOpenDMX(dmxData);
+                    sendEnttecOpenDMX(dmxData, length);
+                    break;
+                case ENTTEC_USB_PRO:
+                    sendEnttecUSBPro(dmxData, length);
                     break;
                 case GENERIC_SERIAL:
-                    sendGenericSerial(dmxData);
+                    sendGenericSerial(dmxData, length);
                     break;
                 default:
                     throw new IllegalArgumentException("Unsupported protocol type: " + protocol);
@@ -331,10 +613,12 @@ public class DMXSerialController implements DMXController {
 
     private void setupDisconnectListener() {
         if (serialPort != null) {
+            // Only one listener can be added to a port, it handles the received data of an Enttec Pro widget too
             serialPort.addDataListener(new SerialPortDataListener() {
                 @Override
                 public int getListeningEvents() {
-                    return SerialPort.LISTENING_EVENT_PORT_DISCONNECTED;
+                    return SerialPort.LISTENING_EVENT_PORT_DISCONNECTED
+                            | (isEnttecPro() ? SerialPort.LISTENING_EVENT_DATA_AVAILABLE : 0);
                 }
 
                 @Override
@@ -342,12 +626,38 @@ public class DMXSerialController implements DMXController {
                     if (event.getEventType() == SerialPort.LISTENING_EVENT_PORT_DISCONNECTED) {
                         LOGGER.warn("Serial port {} disconnected", portName);
                         handleDisconnection("Port physically disconnected");
+                    } else if (event.getEventType() == SerialPort.LISTENING_EVENT_DATA_AVAILABLE) {
+                        readAvailableData();
                     }
                 }
             });
         }
     }
 
+    private void readAvailableData() {
+        int available;
+        while (serialPort != null && (available = serialPort.bytesAvailable()) > 0) {
+            int read = serialPort.readBytes(readBuffer, Math.min(available, readBuffer.length));
+            if (read <= 0) {
+                return;
+            }
+            enttecReceiver.feed(readBuffer, 0, read);
+        }
+    }
+
+    private void onDataReceived() {
+        notifyListeners(DMXStatusChangeMessage.DATA_RECEIVED, enttecReceiver.getData());
+    }
+
+    private void onWidgetParameters(EnttecWidgetParameters parameters) {
+        LOGGER.info("Enttec widget parameters received: {}", parameters);
+        widgetParameters = parameters;
+        var pending = pendingWidgetParameters;
+        if (pending != null) {
+            pending.complete(parameters);
+        }
+    }
+
     private void handleDisconnection(String reason) {
         connected = false;
         LOGGER.error("DMX Serial Controller disconnected: {}", reason);
@@ -375,7 +685,7 @@ public class DMXSerialController implements DMXController {
      * Open DMX USB protocol implementation
      * Simple serial transmission with break and MAB timing
      */
-    private void sendOpenDMXUSB(byte[] dmxData) throws IOException {
+    private void sendOpenDMXUSB(byte[] dmxData, int length) throws IOException {
         // Send break (low signal)
         sendBreak();
 
@@ -386,12 +696,11 @@ public class DMXSerialController implements DMXController {
         outputStream.write(DMX_START_CODE);
 
         // Send DMX data
-        outputStream.write(dmxData);
+        outputStream.write(dmxData, 0, length);
 
         // Pad to 512 channels if needed
-        if (dmxData.length < MAX_DMX_CHANNELS) {
-            byte[] padding = new byte[MAX_DMX_CHANNELS - dmxData.length];
-            outputStream.write(padding);
+        if (length < MAX_DMX_CHANNELS) {
+            outputStream.write(PADDING, 0, MAX_DMX_CHANNELS - length);
         }
 
         outputStream.flush();
@@ -401,56 +710,86 @@ public class DMXSerialController implements DMXController {
      * Enttec Open DMX USB protocol (FTDI-based)
      * Similar to Open DMX USB but with specific timing requirements
      */
-    private void sendEnttecOpenDMX(byte[] dmxData) throws IOException {
+    private void sendEnttecOpenDMX(byte[] dmxData, int length) throws IOException {
         // Enttec Open DMX USB uses a simple serial protocol
         // Send break by writing to serial port with specific timing
         sendBreak();
 
         // Short delay for Mark After Break
-        microDelay(DMX_MAB_TIME_US);
+        timer.sleepMicros(DMX_MAB_TIME_US);
 
-        // Send packet
-        var enttecPacket = EnttecDMXUSBProBuilder.createEnttecDMXPacket(dmxData);
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Enttec message: {}", HexFormat.of().formatHex(enttecPacket));
-        }
+        // Send packet, encoded in the reused buffer of the encoder
+        synchronized (outputLock) {
+            var packetLength = enttecEncoder.encode(dmxData, length);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Enttec message: {}", HexFormat.of().formatHex(enttecEncoder.getBuffer(), 0, packetLength));
+            }
 
-        outputStream.write(enttecPacket);
-        outputStream.flush();
+            outputStream.write(enttecEncoder.getBuffer(), 0, packetLength);
+            outputStream.flush();
+        }
     }
 
     /**
-     * FTDI chip direct communication
-     * Uses FTDI-specific commands for break generation
+     * Enttec DMX USB Pro protocol
+     * The widget generates the break and mark after break, the packet is only written to the widget.
+     * The widget frames the packet by its length, so the data isn't escaped.
      */
-    private void sendFTDIChipDirect(byte[] dmxData) throws IOException {
-        byte FTDI_SIO_SET_BREAK_ON = (byte) 0x23;
-        byte FTDI_SIO_SET_BREAK_OFF = (byte) 0x24;
+    private void sendEnttecUSBPro(byte[] dmxData, int length) throws IOException {
+        synchronized (outputLock) {
+            var packetLength = enttecEncoder.encodeRaw(dmxData, length);
+            outputStream.write(enttecEncoder.getBuffer(), 0, packetLength);
+            outputStream.flush();
+        }
+    }
 
-        // Set break condition
-        outputStream.write(FTDI_SIO_SET_BREAK_ON);
-        microDelay(DMX_BREAK_TIME_US);
+    /**
+     * Send a message to an Enttec DMX USB Pro widget, between the DMX packets of the transmission thread
+     */
+    private void sendEnttecMessage(int label, byte[] data) throws IOException {
+        if (!isEnttecPro()) {
+            throw new IllegalStateException("Protocol " + protocol + " doesn't use an Enttec Pro widget");
+        }
+        if (!connected || outputStream == null) {
+            throw new IOException("Not connected to DMX interface");
+        }
+        synchronized (outputLock) {
+            var packetLength = enttecEncoder.encode(label, data, data.length);
+            outputStream.write(enttecEncoder.getBuffer(), 0, packetLength);
+            outputStream.flush();
+        }
+    }
 
-        // Clear break condition
-        outputStream.write(FTDI_SIO_SET_BREAK_OFF);
-        microDelay(DMX_MAB_TIME_US);
+    private boolean isEnttecPro() {
+        // Only the Pro widget can reply, an Open DMX dongle only transmits
+        return protocol == SerialProtocol.ENTTEC_USB_PRO;
+    }
 
-        // Send start code
-        outputStream.write(DMX_START_CODE);
+    /**
+     * FTDI chip direct communication
+     * Uses the break control of the port and writes the full frame at once,
+     * or slot by slot when an inter-slot spacing is configured
+     */
+    private void sendFTDIChipDirect(byte[] dmxData, int length) throws IOException {
+        // Break and Mark After Break with the line control of the port
+        sendBreak();
+        sendMAB();
 
-        // Send DMX data with inter-slot timing
-        for (int i = 0; i < dmxData.length; i++) {
-            outputStream.write(dmxData[i]);
-            if (i < dmxData.length - 1) {
-                microDelay(DMX_PACKET_TIME_US);
-            }
-        }
+        // Start code and DMX data, padded to 512 channels, in one reused buffer
+        directFrame[0] = DMX_START_CODE;
+        System.arraycopy(dmxData, 0, directFrame, 1, length);
+        Arrays.fill(directFrame, length + 1, directFrame.length, (byte) 0);
 
-        // Pad to 512 channels if needed
-        for (int i = dmxData.length; i < MAX_DMX_CHANNELS; i++) {
-            outputStream.write(0);
-            if (i < MAX_DMX_CHANNELS - 1) {
-                microDelay(DMX_PACKET_TIME_US);
+        var spacing = interSlotSpacingUs;
+        if (spacing == 0) {
+            // The slot timing is defined by the baud rate
+            outputStream.write(directFrame);
+        } else {
+            for (int i = 0; i < directFrame.length; i++) {
+                outputStream.write(directFrame[i]);
+                if (i < directFrame.length - 1) {
+                    timer.sleepMicros(spacing);
+                }
             }
         }
 
@@ -461,10 +800,10 @@ public class DMXSerialController implements DMXController {
      * Generic serial-based DMX transmission
      * Most basic implementation for simple FTDI-based devices
      */
-    private void sendGenericSerial(byte[] dmxData) throws IOException {
+    private void sendGenericSerial(byte[] dmxData, int length) throws IOException {
         // Simple approach: just send the data with start code
         outputStream.write(DMX_START_CODE);
-        outputStream.write(dmxData);
+        outputStream.write(dmxData, 0, length);
         outputStream.flush();
     }
 
@@ -475,7 +814,7 @@ public class DMXSerialController implements DMXController {
      */
     private void sendBreak() throws IOException {
         if (serialPort.setBreak()) {
-            microDelay(DMX_BREAK_TIME_US);
+            timer.sleepMicros(DMX_BREAK_TIME_US);
             serialPort.clearBreak();
         } else {
             // Fallback: temporarily change baud rate for break timing
@@ -483,7 +822,7 @@ public class DMXSerialController implements DMXController {
             serialPort.setBaudRate(90000); // Lower baud rate
             outputStream.write(0x00);
             outputStream.flush();
-            microDelay(DMX_BREAK_TIME_US);
+            timer.sleepMicros(DMX_BREAK_TIME_US);
             serialPort.setBaudRate(originalBaud);
         }
     }
@@ -493,33 +832,6 @@ public class DMXSerialController implements DMXController {
      */
     private void sendMAB() throws IOException {
         // MAB is typically handled by the serial port returning to idle state
-        microDelay(DMX_MAB_TIME_US);
-    }
-
-    /**
-     * Microsecond delay implementation
-     * Note: Java's timing resolution is limited, this is best-effort
-     */
-    private void microDelay(int microseconds) {
-        if (microseconds <= 0) return;
-
-        long nanos = microseconds * 1000L;
-        long startTime = System.nanoTime();
-
-        // Busy wait for very short delays
-        if (nanos < 10000) { // Less than 10ms
-            while (System.nanoTime() - startTime < nanos) {
-                // Busy wait
-            }
-        } else {
-            // Use Thread.sleep for longer delays
-            try {
-                long millis = nanos / 1000000;
-                int remainingNanos = (int) (nanos % 1000000);
-                Thread.sleep(millis, remainingNanos);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
+        timer.sleepMicros(DMX_MAB_TIME_US);
     }
 }
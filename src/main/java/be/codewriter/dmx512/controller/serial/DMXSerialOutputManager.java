@@ -0,0 +1,276 @@
+package be.codewriter.dmx512.controller.serial;
+
+import be.codewriter.dmx512.tool.PrecisionTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the transmission of multiple {@link DMXSerialController}s from one scheduler thread,
+ * instead of a transmission thread per controller.
+ * <p>
+ * On every tick of the scheduler, all ports start sending their latest frame at the same moment,
+ * so universes on different interfaces are updated in the same frame and don't drift apart.
+ * The blocking writes run on a worker thread per port, by default a virtual thread.
+ * A port which is still writing when the next tick arrives skips that tick.
+ * Each port also skips the ticks which would follow its previous frame sooner than the minimum frame spacing
+ * of its controller, or the refresh period of an Enttec widget, so a slower port sends on every n-th tick
+ * and stays aligned with the other ports.
+ * <p>
+ * A controller which is added hands its transmission over to the manager, it takes it back when it's removed.
+ * While the manager is stopped, the added controllers don't transmit.
+ */
+public class DMXSerialOutputManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DMXSerialOutputManager.class.getName());
+
+    private final long frameIntervalNanos;
+    private final ThreadFactory workerFactory;
+    private final PrecisionTimer timer = new PrecisionTimer();
+    private final Object workerLock = new Object();
+    private volatile List<PortWorker> workers = List.of();
+    private volatile boolean running = false;
+    private volatile long tick = 0;
+    private Thread schedulerThread;
+
+    /**
+     * Constructor for a manager with the default frame rate of a serial controller, and virtual worker threads
+     */
+    public DMXSerialOutputManager() {
+        this(DMXSerialController.DEFAULT_FRAME_RATE);
+    }
+
+    /**
+     * Constructor for a manager with the given frame rate, and virtual worker threads
+     *
+     * @param frameRate frames per second, e.g. 44 or 30
+     */
+    public DMXSerialOutputManager(double frameRate) {
+        this(frameRate, Thread.ofVirtual().name("DMX-Serial-Output-", 0).factory());
+    }
+
+    /**
+     * Constructor for a manager with the given frame rate and worker threads.
+     * Writes to a serial port are native calls which occupy the carrier thread of a virtual thread,
+     * use platform threads when the driver blocks until the frame is on the line.
+     *
+     * @param frameRate     frames per second, e.g. 44 or 30
+     * @param workerFactory factory for the worker thread per port
+     */
+    public DMXSerialOutputManager(double frameRate, ThreadFactory workerFactory) {
+        if (frameRate <= 0 || frameRate > TimeUnit.SECONDS.toMicros(1) / (double) DMXSerialController.DMX_MIN_BREAK_TO_BREAK_US) {
+            throw new IllegalArgumentException("Frame rate must be between 0 and "
+                    + (TimeUnit.SECONDS.toMicros(1) / DMXSerialController.DMX_MIN_BREAK_TO_BREAK_US));
+        }
+        if (workerFactory == null) {
+            throw new IllegalArgumentException("Worker factory must be defined");
+        }
+        this.frameIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / frameRate);
+        this.workerFactory = workerFactory;
+    }
+
+    /**
+     * Add a controller, its transmission is handed over to this manager
+     *
+     * @param controller {@link DMXSerialController}
+     */
+    public void add(DMXSerialController controller) {
+        synchronized (workerLock) {
+            for (PortWorker worker : workers) {
+                if (worker.controller == controller) {
+                    return;
+                }
+            }
+            controller.setExternallyDriven(true);
+            var worker = new PortWorker(controller);
+            var updated = new ArrayList<>(workers);
+            updated.add(worker);
+            workers = List.copyOf(updated);
+            if (running) {
+                worker.start();
+            }
+        }
+    }
+
+    /**
+     * Remove a controller, it takes back its own transmission
+     *
+     * @param controller {@link DMXSerialController}
+     */
+    public void remove(DMXSerialController controller) {
+        synchronized (workerLock) {
+            var updated = new ArrayList<PortWorker>(workers.size());
+            for (PortWorker worker : workers) {
+                if (worker.controller == controller) {
+                    worker.stop();
+                    controller.setExternallyDriven(false);
+                } else {
+                    updated.add(worker);
+                }
+            }
+            workers = List.copyOf(updated);
+        }
+    }
+
+    /**
+     * Get the controllers driven by this manager
+     *
+     * @return list of {@link DMXSerialController}
+     */
+    public List<DMXSerialController> getControllers() {
+        return workers.stream().map(worker -> worker.controller).toList();
+    }
+
+    /**
+     * Start the scheduler and the worker threads
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        synchronized (workerLock) {
+            workers.forEach(PortWorker::start);
+        }
+        schedulerThread = new Thread(this::schedulerLoop, "DMX-Serial-Output-Manager");
+        schedulerThread.setDaemon(true);
+        schedulerThread.start();
+        LOGGER.info("Started DMX serial output manager with a frame interval of {}ns", frameIntervalNanos);
+    }
+
+    /**
+     * Stop the scheduler and the worker threads
+     */
+    public synchronized void stop() {
+        running = false;
+        if (schedulerThread != null) {
+            schedulerThread.interrupt();
+            try {
+                schedulerThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            schedulerThread = null;
+        }
+        synchronized (workerLock) {
+            workers.forEach(PortWorker::stop);
+        }
+        LOGGER.info("Stopped DMX serial output manager");
+    }
+
+    /**
+     * Check if the manager is running
+     *
+     * @return is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Get the interval between two frames
+     *
+     * @return interval in nanoseconds
+     */
+    public long getFrameIntervalNanos() {
+        return frameIntervalNanos;
+    }
+
+    private void schedulerLoop() {
+        // Tick 0 is the initial value which the workers have handled, the first tick starts now
+        long startTime = System.nanoTime() - frameIntervalNanos;
+        long next = 1;
+
+        while (running) {
+            timer.sleepUntil(startTime + next * frameIntervalNanos);
+            if (!running || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+
+            // Release all ports at the same moment
+            tick = next;
+            for (PortWorker worker : workers) {
+                worker.wakeUp();
+            }
+
+            // Skip the ticks which were missed completely, instead of sending a burst of frames
+            next = Math.max(next + 1, (System.nanoTime() - startTime) / frameIntervalNanos + 1);
+        }
+
+        LOGGER.debug("DMX serial output manager loop ended");
+    }
+
+    private final class PortWorker implements Runnable {
+        private final DMXSerialController controller;
+        private volatile boolean active = false;
+        private volatile Thread thread;
+        private long handledTick = -1;
+        private long nextTick = 0;
+        private int slots = DMXSerialController.MAX_DMX_CHANNELS;
+
+        private PortWorker(DMXSerialController controller) {
+            this.controller = controller;
+        }
+
+        private void start() {
+            if (active) {
+                return;
+            }
+            active = true;
+            handledTick = tick;
+            nextTick = 0;
+            thread = workerFactory.newThread(this);
+            thread.start();
+        }
+
+        private void stop() {
+            active = false;
+            var current = thread;
+            if (current != null) {
+                LockSupport.unpark(current);
+                try {
+                    current.join(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                thread = null;
+            }
+        }
+
+        private void wakeUp() {
+            var current = thread;
+            if (current != null) {
+                LockSupport.unpark(current);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (active) {
+                long current = tick;
+                if (current == handledTick) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                handledTick = current;
+                if (current < nextTick || !controller.isConnected()) {
+                    continue;
+                }
+                try {
+                    slots = controller.transmitFrame();
+                    // The first tick on which the minimum interval after this frame has passed
+                    long interval = controller.getMinimumFrameIntervalNanos(slots);
+                    nextTick = current + Math.max(1, (interval + frameIntervalNanos - 1) / frameIntervalNanos);
+                } catch (IOException e) {
+                    LOGGER.error("Error during transmission to {}: {}", controller.getAddress(), e.getMessage());
+                }
+            }
+            LOGGER.debug("DMX serial output worker ended for port {}", controller.getAddress());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package be.codewriter.dmx512.controller.serial;
+
+import be.codewriter.dmx512.controller.serial.builder.EnttecDMXUSBProParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static be.codewriter.dmx512.controller.serial.DMXSerialController.DMX_START_CODE;
+import static be.codewriter.dmx512.controller.serial.DMXSerialController.MAX_DMX_CHANNELS;
+
+/**
+ * Receive pipeline of an Enttec DMX USB Pro widget.
+ * The bytes read from the port are parsed incrementally, received DMX packets and change of state packets are
+ * applied to a persistent image of the universe, and the widget parameters are decoded.
+ * <p>
+ * The receiver is fed by the thread reading the serial port, the image can be read from any thread.
+ */
+final class EnttecDMXUSBProReceiver implements EnttecDMXUSBProParser.MessageHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EnttecDMXUSBProReceiver.class.getName());
+    private static final int CHANGE_BLOCK_SIZE = 8;
+    private static final int CHANGE_BITS_OFFSET = 1;
+    private static final int CHANGE_BITS_LENGTH = 5;
+
+    private final EnttecDMXUSBProParser parser = new EnttecDMXUSBProParser(this);
+    private final byte[] image = new byte[MAX_DMX_CHANNELS];
+    private final Runnable dataListener;
+    private final Consumer<EnttecWidgetParameters> parametersListener;
+    private int length = 0;
+
+    /**
+     * Constructor for a receiver
+     *
+     * @param dataListener       called when the image changed
+     * @param parametersListener called with the parameters replied by the widget
+     */
+    EnttecDMXUSBProReceiver(Runnable dataListener, Consumer<EnttecWidgetParameters> parametersListener) {
+        this.dataListener = dataListener;
+        this.parametersListener = parametersListener;
+    }
+
+    /**
+     * Feed the bytes read from the serial port
+     *
+     * @param data   bytes read from the port
+     * @param offset offset of the first byte
+     * @param length number of bytes
+     */
+    void feed(byte[] data, int offset, int length) {
+        parser.feed(data, offset, length);
+    }
+
+    /**
+     * Get a copy of the received DMX data
+     *
+     * @return DMX data, as long as the highest slot which was received
+     */
+    synchronized byte[] getData() {
+        return Arrays.copyOf(image, length);
+    }
+
+    @Override
+    public void handle(int label, byte[] data, int length) {
+        switch (label) {
+            case EnttecDMXUSBProParser.LABEL_RECEIVED_DMX -> handleReceivedDmx(data, length);
+            case EnttecDMXUSBProParser.LABEL_RECEIVED_DMX_CHANGE -> handleReceivedDmxChange(data, length);
+            case EnttecDMXUSBProParser.LABEL_GET_WIDGET_PARAMETERS -> handleWidgetParameters(data, length);
+            default -> LOGGER.debug("Ignored message with label {} and length {}", label, length);
+        }
+    }
+
+    private void handleReceivedDmx(byte[] data, int length) {
+        // Status byte and start code
+        if (length < 2) {
+            return;
+        }
+        if (data[0] != 0) {
+            LOGGER.warn("Widget reported receive status {}", data[0]);
+        }
+        if (data[1] != DMX_START_CODE) {
+            // Not a DMX packet, e.g. RDM
+            return;
+        }
+        var slots = Math.min(length - 2, MAX_DMX_CHANNELS);
+        synchronized (this) {
+            System.arraycopy(data, 2, image, 0, slots);
+            if (slots < this.length) {
+                Arrays.fill(image, slots, this.length, (byte) 0);
+            }
+            this.length = slots;
+        }
+        dataListener.run();
+    }
+
+    private void handleReceivedDmxChange(byte[] data, int length) {
+        if (length < CHANGE_BITS_OFFSET + CHANGE_BITS_LENGTH) {
+            return;
+        }
+        // Index 0 of the changes is the start code, the slots follow
+        var firstIndex = (data[0] & 0xFF) * CHANGE_BLOCK_SIZE;
+        var value = CHANGE_BITS_OFFSET + CHANGE_BITS_LENGTH;
+        synchronized (this) {
+            for (var bit = 0; bit < CHANGE_BITS_LENGTH * 8 && value < length; bit++) {
+                if ((data[CHANGE_BITS_OFFSET + bit / 8] & (1 << (bit % 8))) == 0) {
+                    continue;
+                }
+                var slot = firstIndex + bit - 1;
+                if (slot >= 0 && slot < MAX_DMX_CHANNELS) {
+                    image[slot] = data[value];
+                    this.length = Math.max(this.length, slot + 1);
+                }
+                value++;
+            }
+        }
+        dataListener.run();
+    }
+
+    private void handleWidgetParameters(byte[] data, int length) {
+        if (length < 5) {
+            LOGGER.warn("Invalid widget parameters with length {}", length);
+            return;
+        }
+        parametersListener.accept(new EnttecWidgetParameters(
+                (data[0] & 0xFF) | ((data[1] & 0xFF) << 8),
+                data[2] & 0xFF,
+                data[3] & 0xFF,
+                data[4] & 0xFF));
+    }
+}
@@ -0,0 +1,36 @@
+package be.codewriter.dmx512.controller.serial;
+
+/**
+ * Parameters of an Enttec DMX USB Pro widget, as replied to a request for the widget parameters
+ *
+ * @param firmwareVersion firmware version, major version in the high byte
+ * @param breakTime       DMX output break time in units of 10.67 microseconds
+ * @param mabTime         DMX output mark after break time in units of 10.67 microseconds
+ * @param refreshRate     DMX output rate in packets per second, 0 for the maximum rate of the widget
+ */
+public record EnttecWidgetParameters(
+        int firmwareVersion,
+        int breakTime,
+        int mabTime,
+        int refreshRate
+) {
+    private static final double TIME_UNIT_US = 10.67;
+
+    /**
+     * Get the DMX output break time
+     *
+     * @return break time in microseconds
+     */
+    public double getBreakTimeMicros() {
+        return breakTime * TIME_UNIT_US;
+    }
+
+    /**
+     * Get the DMX output mark after break time
+     *
+     * @return mark after break time in microseconds
+     */
+    public double getMabTimeMicros() {
+        return mabTime * TIME_UNIT_US;
+    }
+}
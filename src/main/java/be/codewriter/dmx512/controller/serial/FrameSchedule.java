@@ -0,0 +1,64 @@
+package be.codewriter.dmx512.controller.serial;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedule of the frames sent on one DMX line, only to be used by the thread which sends the frames.
+ * <p>
+ * A new frame is due as soon as the minimum spacing after the previous send has passed. Unchanged data is
+ * refreshed at fixed deadlines, so the time needed to send a frame doesn't lower the refresh rate.
+ * The spacing is always counted from the time a frame was actually sent, also when the refresh schedule
+ * is kept on its deadlines.
+ */
+final class FrameSchedule {
+    private long lastSent;
+    private long refreshBase;
+
+    /**
+     * Create a schedule on which the first frame is due immediately
+     *
+     * @param now current {@link System#nanoTime()}
+     */
+    FrameSchedule(long now) {
+        this.lastSent = now - TimeUnit.SECONDS.toNanos(1);
+        this.refreshBase = lastSent;
+    }
+
+    /**
+     * Get the time at which the next frame is due
+     *
+     * @param newFrame        true when new data is waiting to be sent
+     * @param spacing         minimum time between two frames in nanoseconds
+     * @param refreshInterval interval to refresh unchanged data in nanoseconds
+     * @return deadline as {@link System#nanoTime()}
+     */
+    long getDeadline(boolean newFrame, long spacing, long refreshInterval) {
+        long earliest = lastSent + spacing;
+        return newFrame ? earliest : Math.max(earliest, refreshBase + refreshInterval);
+    }
+
+    /**
+     * Register a sent frame
+     *
+     * @param now      time at which the frame was sent
+     * @param deadline deadline of the frame, as returned by {@link #getDeadline(boolean, long, long)}
+     * @param spacing  minimum time between two frames in nanoseconds
+     * @param newFrame true when the frame was sent because of new data
+     */
+    void sent(long now, long deadline, long spacing, boolean newFrame) {
+        lastSent = now;
+        // A refresh stays on the schedule of its deadline, unless it was missed by more than a frame,
+        // then the missed frames are skipped instead of sending a burst of frames.
+        // New data can be sent before the refresh deadline, which restarts the refresh schedule.
+        refreshBase = !newFrame && now - deadline < spacing ? deadline : now;
+    }
+
+    /**
+     * Get the time at which the last frame was sent
+     *
+     * @return time as {@link System#nanoTime()}
+     */
+    long getLastSent() {
+        return lastSent;
+    }
+}
@@ -16,6 +16,10 @@ public enum SerialProtocol {
      * Enttec Open DMX USB (FTDI-based)
      */
     ENTTEC_OPEN_DMX,
+    /**
+     * Enttec DMX USB Pro widget, which generates the break and mark after break itself
+     */
+    ENTTEC_USB_PRO,
     /**
      * Generic serial-based DMX
      */
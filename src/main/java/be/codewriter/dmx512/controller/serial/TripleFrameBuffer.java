@@ -0,0 +1,84 @@
+package be.codewriter.dmx512.controller.serial;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static be.codewriter.dmx512.controller.serial.DMXSerialController.MAX_DMX_CHANNELS;
+
+/**
+ * Lock-free handoff of DMX frames from one producer (render) to one consumer (transmission thread).
+ * <p>
+ * Three buffers are used: the producer owns one to write into, the consumer owns one to send from, and the third
+ * one holds the latest published frame. Publishing and taking a frame only swap the index of the buffer they own
+ * with the shared one, so neither side ever blocks or waits for the other, and the consumer always gets the latest
+ * complete frame. Frames which are published faster than they are taken are dropped.
+ */
+final class TripleFrameBuffer {
+    private static final int INDEX_MASK = 0b011;
+    private static final int NEW_FRAME = 0b100;
+
+    private final byte[][] buffers = new byte[3][MAX_DMX_CHANNELS];
+    private final int[] lengths = new int[3];
+    private final AtomicInteger shared = new AtomicInteger(1);
+    private int writeIndex = 0;
+    private int readIndex = 2;
+
+    /**
+     * Publish a new frame, only to be called by the producer
+     *
+     * @param data   DMX data
+     * @param length number of values to use (0-512)
+     */
+    void publish(byte[] data, int length) {
+        var buffer = buffers[writeIndex];
+        System.arraycopy(data, 0, buffer, 0, length);
+        // Clear the values of a previous, longer frame in this buffer
+        if (length < lengths[writeIndex]) {
+            Arrays.fill(buffer, length, lengths[writeIndex], (byte) 0);
+        }
+        lengths[writeIndex] = length;
+        writeIndex = shared.getAndSet(writeIndex | NEW_FRAME) & INDEX_MASK;
+    }
+
+    /**
+     * Check if a new frame was published since the last {@link #take()}
+     *
+     * @return true if a new frame is available
+     */
+    boolean hasNewFrame() {
+        return (shared.get() & NEW_FRAME) != 0;
+    }
+
+    /**
+     * Take the latest published frame, only to be called by the consumer.
+     * When no new frame was published, the previous frame is kept.
+     *
+     * @return true if a new frame was taken
+     */
+    boolean take() {
+        if (!hasNewFrame()) {
+            return false;
+        }
+        readIndex = shared.getAndSet(readIndex) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Get the frame which was taken last, only to be used by the consumer.
+     * Values after the length are always zero.
+     *
+     * @return DMX data of 512 values
+     */
+    byte[] getFrame() {
+        return buffers[readIndex];
+    }
+
+    /**
+     * Get the length of the frame which was taken last, only to be used by the consumer
+     *
+     * @return number of values
+     */
+    int getLength() {
+        return lengths[readIndex];
+    }
+}
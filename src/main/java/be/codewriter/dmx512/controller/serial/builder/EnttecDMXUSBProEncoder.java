@@ -0,0 +1,143 @@
+package be.codewriter.dmx512.controller.serial.builder;
+
+import static be.codewriter.dmx512.controller.serial.DMXSerialController.DMX_START_CODE;
+import static be.codewriter.dmx512.controller.serial.DMXSerialController.MAX_DMX_CHANNELS;
+
+/**
+ * Reusable encoder for the Enttec DMX USB Pro "Output Only Send DMX Packet" message (label 6),
+ * and the other messages which can be sent to the widget.
+ * The message is written into a buffer which is allocated once, with the size of the worst case where every byte
+ * must be escaped, so encoding a frame doesn't allocate any memory.
+ * <p>
+ * The widget API frames a message by its length field, and doesn't unescape the data, so messages for a
+ * DMX USB Pro are written unescaped with {@link #encodeRaw(byte[], int)} and {@link #encode(int, byte[], int)}.
+ * {@link #encode(byte[], int)} escapes the data as {@link EnttecDMXUSBProBuilder} does.
+ * <p>
+ * An encoder is not thread-safe, it's expected to be used by one transmission thread.
+ */
+public class EnttecDMXUSBProEncoder {
+    /**
+     * Maximum length of an encoded message: start, label, 2 length bytes, the start code (never escaped),
+     * the escaped DMX data, and end
+     */
+    public static final int MAX_PACKET_LENGTH = 6 + 2 * MAX_DMX_CHANNELS;
+
+    static final byte START_OF_MESSAGE = (byte) 0x7E;
+    static final byte END_OF_MESSAGE = (byte) 0xE7;
+    static final byte ESCAPE = (byte) 0x7D;
+    static final byte SEND_DMX_PACKET = (byte) 0x06;
+    private static final int DATA_OFFSET = 4;
+
+    private final byte[] buffer = new byte[MAX_PACKET_LENGTH];
+
+    /**
+     * Encode the given DMX data
+     *
+     * @param dmxData Array of DMX channel values (0-512 channels)
+     * @return number of valid bytes in {@link #getBuffer()}
+     * @throws IllegalArgumentException if dmxData is invalid
+     */
+    public int encode(byte[] dmxData) {
+        return encode(dmxData, dmxData == null ? 0 : dmxData.length);
+    }
+
+    /**
+     * Encode the first values of the given DMX data
+     *
+     * @param dmxData Array of DMX channel values
+     * @param length  number of values to use (0-512)
+     * @return number of valid bytes in {@link #getBuffer()}
+     * @throws IllegalArgumentException if dmxData is invalid
+     */
+    public int encode(byte[] dmxData, int length) {
+        if (dmxData == null) {
+            throw new IllegalArgumentException("DMX data cannot be null");
+        }
+        if (length < 0 || length > dmxData.length) {
+            throw new IllegalArgumentException("Invalid DMX data length: " + length);
+        }
+        if (length > MAX_DMX_CHANNELS) {
+            throw new IllegalArgumentException("DMX data cannot exceed " + MAX_DMX_CHANNELS + " channels");
+        }
+
+        var position = DATA_OFFSET;
+        position = writeEscaped((byte) DMX_START_CODE, position);
+        for (var i = 0; i < length; i++) {
+            position = writeEscaped(dmxData[i], position);
+        }
+        return finish(SEND_DMX_PACKET, position);
+    }
+
+    /**
+     * Encode the first values of the given DMX data unescaped, as expected by the DMX USB Pro widget,
+     * so the message is always 6 bytes longer than the number of values
+     *
+     * @param dmxData Array of DMX channel values
+     * @param length  number of values to use (0-512)
+     * @return number of valid bytes in {@link #getBuffer()}
+     * @throws IllegalArgumentException if dmxData is invalid
+     */
+    public int encodeRaw(byte[] dmxData, int length) {
+        if (dmxData == null) {
+            throw new IllegalArgumentException("DMX data cannot be null");
+        }
+        if (length < 0 || length > dmxData.length) {
+            throw new IllegalArgumentException("Invalid DMX data length: " + length);
+        }
+        if (length > MAX_DMX_CHANNELS) {
+            throw new IllegalArgumentException("DMX data cannot exceed " + MAX_DMX_CHANNELS + " channels");
+        }
+
+        buffer[DATA_OFFSET] = (byte) DMX_START_CODE;
+        System.arraycopy(dmxData, 0, buffer, DATA_OFFSET + 1, length);
+        return finish(SEND_DMX_PACKET, DATA_OFFSET + 1 + length);
+    }
+
+    /**
+     * Encode a message with the given label and unescaped data, e.g. a request for the widget parameters
+     *
+     * @param label  label of the message, see {@link EnttecDMXUSBProParser} for the available labels
+     * @param data   data of the message
+     * @param length number of bytes to use (0-512)
+     * @return number of valid bytes in {@link #getBuffer()}
+     * @throws IllegalArgumentException if data is invalid
+     */
+    public int encode(int label, byte[] data, int length) {
+        if (data == null || length < 0 || length > data.length || length > MAX_DMX_CHANNELS) {
+            throw new IllegalArgumentException("Invalid message data");
+        }
+
+        System.arraycopy(data, 0, buffer, DATA_OFFSET, length);
+        return finish((byte) label, DATA_OFFSET + length);
+    }
+
+    /**
+     * Get the buffer with the last encoded message, only the length returned by encode is valid
+     *
+     * @return the internal buffer, not a copy
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    private int finish(byte label, int position) {
+        // The length in the header is the length of the data as written, escaped or not
+        var dataLength = position - DATA_OFFSET;
+        buffer[0] = START_OF_MESSAGE;
+        buffer[1] = label;
+        buffer[2] = (byte) (dataLength & 0xFF);
+        buffer[3] = (byte) ((dataLength >> 8) & 0xFF);
+        buffer[position++] = END_OF_MESSAGE;
+        return position;
+    }
+
+    private int writeEscaped(byte value, int position) {
+        if (value == START_OF_MESSAGE || value == END_OF_MESSAGE || value == ESCAPE) {
+            buffer[position++] = ESCAPE;
+            buffer[position++] = (byte) (value ^ 0x20);
+        } else {
+            buffer[position++] = value;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,147 @@
+package be.codewriter.dmx512.controller.serial.builder;
+
+/**
+ * Incremental parser for the messages sent by an Enttec DMX USB Pro widget.
+ * <p>
+ * The bytes read from the serial port are fed in chunks of any size, they are collected in a ring buffer
+ * and every complete message is handed to the {@link MessageHandler}. A message is framed by a start byte, label,
+ * two length bytes, the data and an end byte. Bytes which don't belong to a valid message are skipped,
+ * so the parser synchronizes again on the next start byte.
+ * <p>
+ * A parser is not thread-safe, it's expected to be fed by the thread reading the serial port.
+ */
+public class EnttecDMXUSBProParser {
+    /**
+     * Request or reply with the widget parameters
+     */
+    public static final int LABEL_GET_WIDGET_PARAMETERS = 3;
+    /**
+     * Received DMX packet, with a status byte and the start code and DMX data
+     */
+    public static final int LABEL_RECEIVED_DMX = 5;
+    /**
+     * Output only send DMX packet
+     */
+    public static final int LABEL_SEND_DMX = 6;
+    /**
+     * Receive DMX on change mode: 0 to receive every packet, 1 to only receive the changes
+     */
+    public static final int LABEL_SET_RECEIVE_MODE = 8;
+    /**
+     * Received DMX change of state packet
+     */
+    public static final int LABEL_RECEIVED_DMX_CHANGE = 9;
+    /**
+     * Maximum length of the data of a message
+     */
+    public static final int MAX_DATA_LENGTH = 600;
+
+    private static final int HEADER_LENGTH = 4;
+    private static final int RING_SIZE = 2048;
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    private final MessageHandler handler;
+    private final byte[] ring = new byte[RING_SIZE];
+    private final byte[] message = new byte[MAX_DATA_LENGTH];
+    private long readPosition = 0;
+    private long writePosition = 0;
+
+    /**
+     * Constructor for a parser which hands the messages to the given handler
+     *
+     * @param handler {@link MessageHandler}
+     */
+    public EnttecDMXUSBProParser(MessageHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Message handler must be defined");
+        }
+        this.handler = handler;
+    }
+
+    /**
+     * Feed the bytes read from the serial port, and handle all messages which are complete
+     *
+     * @param data   bytes read from the port
+     * @param offset offset of the first byte
+     * @param length number of bytes
+     */
+    public void feed(byte[] data, int offset, int length) {
+        while (length > 0) {
+            var chunk = Math.min(length, RING_SIZE - available());
+            if (chunk == 0) {
+                // No complete message fits in the buffer, drop the oldest byte and synchronize again
+                readPosition++;
+                continue;
+            }
+            var start = (int) (writePosition & RING_MASK);
+            var first = Math.min(chunk, RING_SIZE - start);
+            System.arraycopy(data, offset, ring, start, first);
+            System.arraycopy(data, offset + first, ring, 0, chunk - first);
+            writePosition += chunk;
+            offset += chunk;
+            length -= chunk;
+            parse();
+        }
+    }
+
+    /**
+     * Get the number of bytes which were fed but are not part of a complete message yet
+     *
+     * @return number of bytes
+     */
+    public int available() {
+        return (int) (writePosition - readPosition);
+    }
+
+    private void parse() {
+        while (true) {
+            // Skip to the start of a message
+            while (available() > 0 && get(0) != EnttecDMXUSBProEncoder.START_OF_MESSAGE) {
+                readPosition++;
+            }
+            if (available() < HEADER_LENGTH) {
+                return;
+            }
+            var label = get(1) & 0xFF;
+            var length = (get(2) & 0xFF) | ((get(3) & 0xFF) << 8);
+            if (length > MAX_DATA_LENGTH) {
+                readPosition++;
+                continue;
+            }
+            if (available() < HEADER_LENGTH + length + 1) {
+                return;
+            }
+            if (get(HEADER_LENGTH + length) != EnttecDMXUSBProEncoder.END_OF_MESSAGE) {
+                readPosition++;
+                continue;
+            }
+
+            var start = (int) ((readPosition + HEADER_LENGTH) & RING_MASK);
+            var first = Math.min(length, RING_SIZE - start);
+            System.arraycopy(ring, start, message, 0, first);
+            System.arraycopy(ring, 0, message, first, length - first);
+            readPosition += HEADER_LENGTH + length + 1;
+
+            handler.handle(label, message, length);
+        }
+    }
+
+    private byte get(int index) {
+        return ring[(int) ((readPosition + index) & RING_MASK)];
+    }
+
+    /**
+     * Handler for the messages which are parsed
+     */
+    @FunctionalInterface
+    public interface MessageHandler {
+        /**
+         * Handle a complete message
+         *
+         * @param label  label of the message
+         * @param data   data of the message, only valid during this call as the array is reused
+         * @param length length of the data
+         */
+        void handle(int label, byte[] data, int length);
+    }
+}
@@ -0,0 +1,550 @@
+package be.codewriter.dmx512.merge;
+
+import be.codewriter.dmx512.controller.DMXController;
+import be.codewriter.dmx512.controller.change.DMXSourceFrameListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Engine to merge the DMX data of multiple sources per universe, and render the merged frames on a
+ * {@link DMXController}, e.g. two consoles and a show controller sending the same universes.
+ * <p>
+ * Sources are identified by a number chosen by the caller, and submit their frames with a priority, as used by sACN.
+ * Only the sources with the highest priority of a universe are merged, per slot with the {@link MergeMode},
+ * so a backup console with a lower priority takes over when the main console stops sending.
+ * A source which didn't send a frame within the source timeout is removed, as a sACN receiver does when a source
+ * is lost, so sources must keep submitting their frames, also when they don't change.
+ * <p>
+ * Merging runs in place on the arrays of each universe, which are allocated once per universe and source,
+ * so submitting a frame doesn't allocate any memory. A merged frame is rendered when it changed,
+ * and unchanged universes are resent at the keep-alive interval while the engine is running.
+ * The merged frame is copied to an output buffer of the universe, and rendered after releasing the lock of the
+ * universe, so a slow output doesn't block the submitting threads.
+ */
+public class DMXMergeEngine {
+    /**
+     * Default source timeout, the network data loss timeout of sACN
+     */
+    public static final Duration DEFAULT_SOURCE_TIMEOUT = Duration.ofMillis(2_500);
+    /**
+     * Default interval to resend unchanged universes
+     */
+    public static final Duration DEFAULT_KEEP_ALIVE_INTERVAL = Duration.ofSeconds(1);
+    /**
+     * Maximum universe number
+     */
+    public static final int MAX_UNIVERSE = 63999;
+    /**
+     * Maximum priority
+     */
+    public static final int MAX_PRIORITY = 200;
+    private static final Logger LOGGER = LoggerFactory.getLogger(DMXMergeEngine.class.getName());
+    private static final int MAX_SLOTS = 512;
+    private static final long MAINTENANCE_INTERVAL_NANOS = 100_000_000L;
+
+    private final DMXController output;
+    private final MergeMode mode;
+    private final long sourceTimeoutNanos;
+    private final long keepAliveIntervalNanos;
+    private final Object universeLock = new Object();
+    private volatile MergeUniverse[] universes = new MergeUniverse[16];
+    private volatile boolean running = false;
+    private Thread maintenanceThread;
+
+    /**
+     * Constructor for an engine with the given merge mode, and the default source timeout and keep-alive interval
+     *
+     * @param output {@link DMXController} to render the merged frames on
+     * @param mode   {@link MergeMode}
+     */
+    public DMXMergeEngine(DMXController output, MergeMode mode) {
+        this(output, mode, DEFAULT_SOURCE_TIMEOUT, DEFAULT_KEEP_ALIVE_INTERVAL);
+    }
+
+    /**
+     * Constructor for an engine with the given merge mode, source timeout and keep-alive interval
+     *
+     * @param output            {@link DMXController} to render the merged frames on
+     * @param mode              {@link MergeMode}
+     * @param sourceTimeout     time after which a source without new frames is removed
+     * @param keepAliveInterval interval to resend unchanged universes
+     */
+    public DMXMergeEngine(DMXController output, MergeMode mode, Duration sourceTimeout, Duration keepAliveInterval) {
+        if (output == null || mode == null) {
+            throw new IllegalArgumentException("Output and merge mode must be defined");
+        }
+        if (sourceTimeout == null || sourceTimeout.isNegative() || sourceTimeout.isZero()) {
+            throw new IllegalArgumentException("Source timeout must be defined and positive");
+        }
+        if (keepAliveInterval == null || keepAliveInterval.isNegative()) {
+            throw new IllegalArgumentException("Keep-alive interval must be defined and positive");
+        }
+        this.output = output;
+        this.mode = mode;
+        this.sourceTimeoutNanos = sourceTimeout.toNanos();
+        this.keepAliveIntervalNanos = keepAliveInterval.toNanos();
+    }
+
+    /**
+     * Submit a frame of a source, merge it with the other sources of the universe, and render the merged frame
+     * when it changed. Frames of different universes can be submitted from different threads.
+     *
+     * @param sourceId number identifying the source
+     * @param universe universe number (0-63999), also used to render the merged frame
+     * @param priority priority of the source (0-200), only the sources with the highest priority are merged
+     * @param data     array containing the DMX values
+     * @param offset   offset of the first DMX value in the data
+     * @param length   number of DMX values (0-512)
+     */
+    public void submit(int sourceId, int universe, int priority, byte[] data, int offset, int length) {
+        if (priority < 0 || priority > MAX_PRIORITY) {
+            throw new IllegalArgumentException("Priority must be between 0 and " + MAX_PRIORITY);
+        }
+        if (data == null || length < 0 || length > MAX_SLOTS || offset < 0 || offset + length > data.length) {
+            throw new IllegalArgumentException("Invalid DMX data range");
+        }
+        var target = getOrCreateUniverse(universe);
+        boolean merged;
+        synchronized (target) {
+            var now = System.nanoTime();
+            // An unchanged frame only refreshes the source, unless another source timed out meanwhile
+            var changed = target.getOrCreateSource(sourceId).update(priority, data, offset, length, now, ++target.stamp);
+            changed |= target.expire(now, sourceTimeoutNanos);
+            merged = changed && target.merge(mode);
+        }
+        if (merged) {
+            render(target);
+        }
+    }
+
+    /**
+     * Submit a complete frame of a source
+     *
+     * @param sourceId number identifying the source
+     * @param universe universe number (0-63999)
+     * @param priority priority of the source (0-200)
+     * @param data     DMX values (0-512)
+     */
+    public void submit(int sourceId, int universe, int priority, byte[] data) {
+        submit(sourceId, universe, priority, data, 0, data == null ? 0 : data.length);
+    }
+
+    /**
+     * Create a listener which submits every received frame with the source and priority of its packet,
+     * e.g. to merge universes of a {@link be.codewriter.dmx512.controller.ip.DMXIPReceiver} subscribed with
+     * {@link be.codewriter.dmx512.controller.ip.DMXIPReceiver#subscribeFrames}, so each sender is a separate source
+     * which stays active as long as it keeps sending, and is removed from the universe as soon as it terminates
+     * its stream.
+     *
+     * @return {@link DMXSourceFrameListener}
+     */
+    public DMXSourceFrameListener createListener() {
+        return new DMXSourceFrameListener() {
+            @Override
+            public void notify(int universe, int sourceId, int priority, byte[] data, int offset, int length) {
+                submit(sourceId, universe, Math.min(priority, MAX_PRIORITY), data, offset, length);
+            }
+
+            @Override
+            public void removeSource(int universe, int sourceId) {
+                DMXMergeEngine.this.removeSource(sourceId, universe);
+            }
+        };
+    }
+
+    /**
+     * Remove a source from all universes, e.g. when a sACN source sends a stream terminated packet.
+     * The affected universes are merged again without the source.
+     *
+     * @param sourceId number identifying the source
+     */
+    public void removeSource(int sourceId) {
+        for (MergeUniverse universe : universes) {
+            if (universe == null) {
+                continue;
+            }
+            boolean merged;
+            synchronized (universe) {
+                merged = universe.removeSource(sourceId) && universe.merge(mode);
+            }
+            if (merged) {
+                render(universe);
+            }
+        }
+    }
+
+    /**
+     * Remove a source from one universe, e.g. when a sACN source terminates the stream of that universe.
+     * The universe is merged again without the source, so a source with a lower priority takes over immediately.
+     *
+     * @param sourceId number identifying the source
+     * @param universe universe number
+     */
+    public void removeSource(int sourceId, int universe) {
+        var target = getUniverse(universe);
+        if (target == null) {
+            return;
+        }
+        boolean merged;
+        synchronized (target) {
+            merged = target.removeSource(sourceId) && target.merge(mode);
+        }
+        if (merged) {
+            render(target);
+        }
+    }
+
+    /**
+     * Remove the sources which timed out from all universes, and merge the affected universes again.
+     * This is done periodically while the engine is running.
+     */
+    public void expireSources() {
+        var now = System.nanoTime();
+        for (MergeUniverse universe : universes) {
+            if (universe == null) {
+                continue;
+            }
+            boolean merged;
+            synchronized (universe) {
+                merged = universe.expire(now, sourceTimeoutNanos) && universe.merge(mode);
+            }
+            if (merged) {
+                render(universe);
+            }
+        }
+    }
+
+    /**
+     * Get the number of active sources of a universe
+     *
+     * @param universe universe number
+     * @return number of sources
+     */
+    public int getSourceCount(int universe) {
+        var target = getUniverse(universe);
+        if (target == null) {
+            return 0;
+        }
+        synchronized (target) {
+            return target.sourceCount;
+        }
+    }
+
+    /**
+     * Get the merged value of a slot
+     *
+     * @param universe universe number
+     * @param slot     slot index (0-511)
+     * @return merged value, 0 when the universe or slot isn't sent by any source
+     */
+    public byte getValue(int universe, int slot) {
+        var target = getUniverse(universe);
+        if (target == null) {
+            return 0;
+        }
+        synchronized (target) {
+            return slot < target.length ? target.merged[slot] : 0;
+        }
+    }
+
+    /**
+     * Start the maintenance thread, which removes the sources which timed out, and resends unchanged universes
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        maintenanceThread = new Thread(this::maintenanceLoop, "DMX-Merge-Engine");
+        maintenanceThread.setDaemon(true);
+        maintenanceThread.start();
+        LOGGER.info("Started DMX merge engine with {} merge", mode);
+    }
+
+    /**
+     * Stop the maintenance thread
+     */
+    public synchronized void stop() {
+        running = false;
+        if (maintenanceThread != null) {
+            LockSupport.unpark(maintenanceThread);
+            try {
+                maintenanceThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            maintenanceThread = null;
+        }
+        LOGGER.info("Stopped DMX merge engine");
+    }
+
+    /**
+     * Check if the maintenance thread is running
+     *
+     * @return is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Get the merge mode
+     *
+     * @return {@link MergeMode}
+     */
+    public MergeMode getMode() {
+        return mode;
+    }
+
+    private void maintenanceLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, Math.min(MAINTENANCE_INTERVAL_NANOS, Math.max(keepAliveIntervalNanos, 1)));
+            if (!running) {
+                break;
+            }
+            expireSources();
+            var now = System.nanoTime();
+            for (MergeUniverse universe : universes) {
+                if (universe == null) {
+                    continue;
+                }
+                boolean due;
+                synchronized (universe) {
+                    due = universe.sourceCount > 0 && now - universe.lastRenderedNanos >= keepAliveIntervalNanos;
+                }
+                if (due) {
+                    render(universe);
+                }
+            }
+        }
+        LOGGER.debug("DMX merge engine loop ended");
+    }
+
+    /**
+     * Render the merged frame of a universe, without holding its lock while the output is sending,
+     * so a slow output doesn't block the threads submitting frames.
+     * Only one thread renders a universe at a time, a render requested meanwhile is done by that thread,
+     * with the latest merged frame, when its current render is finished.
+     */
+    private void render(MergeUniverse universe) {
+        if (universe.renderRequests.getAndIncrement() != 0) {
+            return;
+        }
+        var requests = 1;
+        do {
+            byte[] frame;
+            synchronized (universe) {
+                universe.lastRenderedNanos = System.nanoTime();
+                // The output buffer is only written by the rendering thread, so it can be read after the lock
+                frame = universe.length == 0 ? null : universe.getOutput();
+            }
+            if (frame != null && output.isConnected()) {
+                try {
+                    output.render(universe.id, frame);
+                } catch (Exception e) {
+                    LOGGER.error("Error while rendering universe {} to {}: {}", universe.id, output.getAddress(), e.getMessage());
+                }
+            }
+            requests = universe.renderRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+
+    private MergeUniverse getUniverse(int universe) {
+        var current = universes;
+        return (universe >= 0 && universe < current.length) ? current[universe] : null;
+    }
+
+    private MergeUniverse getOrCreateUniverse(int universe) {
+        var target = getUniverse(universe);
+        if (target != null) {
+            return target;
+        }
+        if (universe < 0 || universe > MAX_UNIVERSE) {
+            throw new IllegalArgumentException("Universe must be between 0 and " + MAX_UNIVERSE);
+        }
+        synchronized (universeLock) {
+            var current = universes;
+            if (universe < current.length && current[universe] != null) {
+                return current[universe];
+            }
+            var updated = universe < current.length ? current.clone()
+                    : Arrays.copyOf(current, Math.max(universe + 1, current.length * 2));
+            target = new MergeUniverse(universe);
+            updated[universe] = target;
+            universes = updated;
+            return target;
+        }
+    }
+
+    /**
+     * Merge state of one universe, guarded by its own lock
+     */
+    private static final class MergeUniverse {
+        private final int id;
+        private final byte[] merged = new byte[MAX_SLOTS];
+        // Number of renders requested since the rendering thread started, see render()
+        private final AtomicInteger renderRequests = new AtomicInteger();
+        private Source[] sources = new Source[4];
+        private int sourceCount;
+        private int length;
+        private long stamp;
+        private long lastRenderedNanos;
+        private byte[] output = new byte[0];
+
+        private MergeUniverse(int id) {
+            this.id = id;
+        }
+
+        private Source getOrCreateSource(int sourceId) {
+            for (var i = 0; i < sourceCount; i++) {
+                if (sources[i].id == sourceId) {
+                    return sources[i];
+                }
+            }
+            if (sourceCount == sources.length) {
+                sources = Arrays.copyOf(sources, sources.length * 2);
+            }
+            var source = new Source(sourceId);
+            sources[sourceCount++] = source;
+            return source;
+        }
+
+        private boolean removeSource(int sourceId) {
+            for (var i = 0; i < sourceCount; i++) {
+                if (sources[i].id == sourceId) {
+                    remove(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean expire(long now, long timeoutNanos) {
+            var removed = false;
+            for (var i = sourceCount - 1; i >= 0; i--) {
+                if (now - sources[i].lastUpdateNanos > timeoutNanos) {
+                    LOGGER.debug("Source {} of universe {} timed out", sources[i].id, id);
+                    remove(i);
+                    removed = true;
+                }
+            }
+            return removed;
+        }
+
+        private void remove(int index) {
+            System.arraycopy(sources, index + 1, sources, index, sourceCount - index - 1);
+            sources[--sourceCount] = null;
+        }
+
+        /**
+         * Merge the sources with the highest priority into the merged frame
+         *
+         * @return true if the merged frame changed
+         */
+        private boolean merge(MergeMode mode) {
+            var highest = -1;
+            var mergedLength = 0;
+            for (var i = 0; i < sourceCount; i++) {
+                highest = Math.max(highest, sources[i].priority);
+            }
+            for (var i = 0; i < sourceCount; i++) {
+                if (sources[i].priority == highest) {
+                    mergedLength = Math.max(mergedLength, sources[i].length);
+                }
+            }
+
+            var changed = mergedLength != length;
+            for (var slot = 0; slot < mergedLength; slot++) {
+                var value = mode == MergeMode.HTP ? mergeHighest(slot, highest) : mergeLatest(slot, highest);
+                if (merged[slot] != value) {
+                    merged[slot] = value;
+                    changed = true;
+                }
+            }
+            // Slots which are no longer sent by any source are cleared
+            for (var slot = mergedLength; slot < length; slot++) {
+                merged[slot] = 0;
+            }
+            length = mergedLength;
+            return changed;
+        }
+
+        private byte mergeHighest(int slot, int priority) {
+            var value = 0;
+            for (var i = 0; i < sourceCount; i++) {
+                var source = sources[i];
+                if (source.priority == priority && slot < source.length) {
+                    value = Math.max(value, source.data[slot] & 0xFF);
+                }
+            }
+            return (byte) value;
+        }
+
+        private byte mergeLatest(int slot, int priority) {
+            byte value = 0;
+            var latest = -1L;
+            for (var i = 0; i < sourceCount; i++) {
+                var source = sources[i];
+                if (source.priority == priority && slot < source.length && source.changed[slot] > latest) {
+                    latest = source.changed[slot];
+                    value = source.data[slot];
+                }
+            }
+            return value;
+        }
+
+        private byte[] getOutput() {
+            // The output array only needs to be replaced when the merged length changes
+            if (output.length != length) {
+                output = new byte[length];
+            }
+            System.arraycopy(merged, 0, output, 0, length);
+            return output;
+        }
+    }
+
+    /**
+     * Last frame of a source in one universe
+     */
+    private static final class Source {
+        private final int id;
+        private final byte[] data = new byte[MAX_SLOTS];
+        // Stamp of the last change per slot, used for LTP
+        private final long[] changed = new long[MAX_SLOTS];
+        private int priority;
+        // Unknown until the first frame, so the first frame is always a change
+        private int length = -1;
+        private long lastUpdateNanos;
+
+        private Source(int id) {
+            this.id = id;
+        }
+
+        /**
+         * Update the frame of the source, and refresh it also when nothing changed
+         *
+         * @return true if the data, length or priority changed, or the source is new
+         */
+        private boolean update(int priority, byte[] source, int offset, int length, long now, long stamp) {
+            var updated = priority != this.priority || length != this.length;
+            for (var slot = 0; slot < length; slot++) {
+                var value = source[offset + slot];
+                // Slots which are new for this source count as changed
+                if (slot >= this.length || data[slot] != value) {
+                    data[slot] = value;
+                    changed[slot] = stamp;
+                    updated = true;
+                }
+            }
+            this.priority = priority;
+            this.length = length;
+            this.lastUpdateNanos = now;
+            return updated;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package be.codewriter.dmx512.merge;
+
+/**
+ * Available rules to merge the slots of multiple sources of the same universe
+ */
+public enum MergeMode {
+    /**
+     * Highest takes precedence: each slot gets the highest value of all sources
+     */
+    HTP,
+    /**
+     * Latest takes precedence: each slot gets the value of the source which changed it last
+     */
+    LTP
+}
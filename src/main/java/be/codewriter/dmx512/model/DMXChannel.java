@@ -0,0 +1,28 @@
+package be.codewriter.dmx512.model;
+
+/**
+ * Handle to a channel of a {@link DMXClient}, resolved once by name with {@link DMXClient#channel(String)}.
+ * Reading and writing through the handle uses the index directly, without any lookup by name.
+ *
+ * @param client the client
+ * @param index  index of the channel in the selected mode of the client
+ */
+public record DMXChannel(DMXClient client, int index) {
+    /**
+     * Change the value of the channel
+     *
+     * @param value the new value
+     */
+    public void setValue(byte value) {
+        client.setValue(index, value);
+    }
+
+    /**
+     * Get the value of the channel
+     *
+     * @return the value
+     */
+    public byte getValue() {
+        return client.getValue(index);
+    }
+}
@@ -0,0 +1,45 @@
+package be.codewriter.dmx512.model;
+
+import java.util.Arrays;
+
+/**
+ * Handle to the same channel of a group of clients in a {@link DMXUniverse}, e.g. the dimmer of all fixtures
+ * of one type. The absolute slots are resolved once, so changing the value is a loop over an int array.
+ */
+public final class DMXChannelGroup {
+
+    private final DMXUniverse universe;
+    private final int[] slots;
+
+    DMXChannelGroup(DMXUniverse universe, int[] slots) {
+        this.universe = universe;
+        this.slots = slots;
+    }
+
+    /**
+     * Change the value of the channel on all the clients in the group
+     *
+     * @param value the new value
+     */
+    public void setValue(byte value) {
+        universe.setSlots(slots, value);
+    }
+
+    /**
+     * Get the number of clients in the group
+     *
+     * @return size
+     */
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * Get the zero-based slots in the universe which are changed by this group
+     *
+     * @return copy of the slots
+     */
+    public int[] getSlots() {
+        return Arrays.copyOf(slots, slots.length);
+    }
+}
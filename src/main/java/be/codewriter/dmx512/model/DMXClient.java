@@ -5,8 +5,13 @@ import be.codewriter.dmx512.ofl.model.Mode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 /**
  * A DMX client is a light fixture, smoke machine, or other device in a DMX chain.
+ * <p>
+ * Once the client is added to a {@link DMXUniverse}, its values are stored directly in the frame buffer
+ * of that universe, so changing a value doesn't need an extra copy when the universe is rendered.
  */
 public class DMXClient {
     private static final Logger LOGGER = LoggerFactory.getLogger(DMXClient.class.getName());
@@ -14,7 +19,10 @@ public class DMXClient {
     private final Fixture fixture;
     private final Mode selectedMode;
     private final int address;
-    private final byte[] values;
+    private final int numberOfChannels;
+    private byte[] values;
+    private int offset = 0;
+    private DMXUniverse universe;
 
     /**
      * Construct a DMX client at an address with the number of channel values.
@@ -29,6 +37,7 @@ public class DMXClient {
         this.fixture = null;
         this.selectedMode = null;
         this.address = address;
+        this.numberOfChannels = numberOfChannels;
         this.values = new byte[numberOfChannels];
     }
 
@@ -49,7 +58,8 @@ public class DMXClient {
         this.fixture = fixture;
         this.selectedMode = fixture.modes().getFirst();
         this.address = address;
-        this.values = new byte[selectedMode.channels().size()];
+        this.numberOfChannels = selectedMode.channels().size();
+        this.values = new byte[numberOfChannels];
     }
 
     /**
@@ -72,13 +82,40 @@ public class DMXClient {
         this.fixture = fixture;
         this.selectedMode = selectedMode;
         this.address = address;
-        this.values = new byte[selectedMode.channels().size()];
+        this.numberOfChannels = selectedMode.channels().size();
+        this.values = new byte[numberOfChannels];
     }
 
+    /**
+     * Set all the values to 0
+     */
     public void reset() {
-        for (int i = 0; i < values.length; i++) {
-            values[i] = 0;
+        Arrays.fill(values, offset, offset + numberOfChannels, (byte) 0);
+        if (universe != null) {
+            universe.markDirty();
+        }
+    }
+
+    /**
+     * Store the values of this client in the frame buffer of the given universe, from now on
+     * all changes are written directly into the slots of the client within that buffer.
+     *
+     * @param universe {@link DMXUniverse}
+     * @param frame    frame buffer of the universe
+     */
+    void attach(DMXUniverse universe, byte[] frame) {
+        if (this.universe != null && this.universe != universe) {
+            throw new IllegalStateException("Client at address " + address + " is already part of universe " + this.universe.getId());
+        }
+        var start = address - 1;
+        if (start + numberOfChannels > frame.length) {
+            throw new IllegalArgumentException("Client at address " + address + " with " + numberOfChannels
+                    + " channels doesn't fit in a universe of " + frame.length + " channels");
         }
+        System.arraycopy(values, offset, frame, start, numberOfChannels);
+        this.values = frame;
+        this.offset = start;
+        this.universe = universe;
     }
 
     /**
@@ -119,7 +156,36 @@ public class DMXClient {
             LOGGER.error("No mode defined, no channels defined by name");
             return false;
         }
-        return selectedMode.getChannelIndex(key) >= 0;
+        return getChannelIndex(key) >= 0;
+    }
+
+    /**
+     * Get the index of the channel with the given name in the selected mode (case independant)
+     *
+     * @param key name of the channel
+     * @return index or -1 if not found, or without a mode
+     */
+    public int getChannelIndex(String key) {
+        return selectedMode == null ? -1 : selectedMode.getChannelIndex(key);
+    }
+
+    /**
+     * Resolve the channel with the given name in the selected mode to a handle,
+     * which can be used to change the value without looking up the name again.
+     *
+     * @param key name of the channel
+     * @return {@link DMXChannel}
+     * @throws IllegalArgumentException if no channel exists with the given name
+     */
+    public DMXChannel channel(String key) {
+        if (selectedMode == null) {
+            throw new IllegalArgumentException("No mode defined, no channels defined by name");
+        }
+        var idx = getChannelIndex(key);
+        if (idx == -1) {
+            throw new IllegalArgumentException("Can't find the channel index for key '" + key + "'");
+        }
+        return new DMXChannel(this, idx);
     }
 
     /**
@@ -129,10 +195,13 @@ public class DMXClient {
      * @param value the new value
      */
     public void setValue(int idx, byte value) {
-        if (idx < 0 || idx >= values.length) {
-            throw new IllegalArgumentException("The given index is outside of the available range " + idx + "/" + values.length);
+        if (idx < 0 || idx >= numberOfChannels) {
+            throw new IllegalArgumentException("The given index is outside of the available range " + idx + "/" + numberOfChannels);
+        }
+        values[offset + idx] = value;
+        if (universe != null) {
+            universe.markDirty();
         }
-        values[idx] = value;
     }
 
     /**
@@ -146,7 +215,7 @@ public class DMXClient {
             LOGGER.error("No mode defined, can't set the value");
             return;
         }
-        var idx = selectedMode.getChannelIndex(key);
+        var idx = getChannelIndex(key);
         if (idx == -1) {
             LOGGER.error("Can't find the channel index for key '{}'", key);
             return;
@@ -161,10 +230,10 @@ public class DMXClient {
      * @return the value for the given index
      */
     public byte getValue(int idx) {
-        if (idx < 0 || idx >= values.length) {
-            throw new IllegalArgumentException("The given index is outside of the available range " + idx + "/" + values.length);
+        if (idx < 0 || idx >= numberOfChannels) {
+            throw new IllegalArgumentException("The given index is outside of the available range " + idx + "/" + numberOfChannels);
         }
-        return values[idx];
+        return values[offset + idx];
     }
 
     /**
@@ -178,7 +247,7 @@ public class DMXClient {
             LOGGER.error("No mode defined, returning value 0");
             return 0;
         }
-        var idx = selectedMode.getChannelIndex(key);
+        var idx = getChannelIndex(key);
         if (idx == -1) {
             LOGGER.error("Can't find the channel index for key '{}', will return value 0", key);
             return 0;
@@ -192,15 +261,28 @@ public class DMXClient {
      * @return length
      */
     public int getDataLength() {
-        return values.length;
+        return numberOfChannels;
     }
 
     /**
-     * The DMX data packet of this client
+     * The DMX data packet of this client.
+     * When the client is part of a universe, this is a copy of its slots in the frame buffer of the universe.
      *
      * @return byte array
      */
     public byte[] getData() {
-        return values;
+        if (universe == null) {
+            return values;
+        }
+        return Arrays.copyOfRange(values, offset, offset + numberOfChannels);
+    }
+
+    /**
+     * Get the universe this client is part of
+     *
+     * @return {@link DMXUniverse} or null
+     */
+    public DMXUniverse getUniverse() {
+        return universe;
     }
 }
@@ -1,19 +1,46 @@
 package be.codewriter.dmx512.model;
 
 import be.codewriter.dmx512.ofl.model.Fixture;
+import be.codewriter.dmx512.ofl.model.Mode;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Defines a DMX universe by id and list of {@link DMXClient}.
  * In most cases, universe ID 0 is used for controllers with only one DMX (XLR) connection.
  * For controllers with multiple DMX (XLR) connections, multiple universes must be created with their own ID.
+ * <p>
+ * The universe owns a persistent frame buffer of 512 slots, in which the clients store their values directly.
+ * Any change marks the universe as dirty, so renderers can skip universes which didn't change.
+ * With {@link #snapshot()} a renderer gets a stable copy of the frame, without allocating memory.
+ * <p>
+ * The slots of each channel name are indexed, for all clients and per fixture type, so updating a channel on many
+ * clients doesn't need to resolve the channel name for each client.
+ * <p>
+ * The class is final, as the constructor attaches the clients to the universe before it's fully constructed.
  */
-public class DMXUniverse {
+public final class DMXUniverse {
+    /**
+     * Maximum number of channels in a universe
+     */
+    public static final int MAX_CHANNELS = 512;
 
     private final int id;
     private final List<DMXClient> clients;
+    private final byte[] frame = new byte[MAX_CHANNELS];
+    private final byte[][] snapshots = {new byte[MAX_CHANNELS], new byte[MAX_CHANNELS]};
+    private int snapshotIndex = 0;
+    private int length = 0;
+    private long version = 0;
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private volatile Map<String, int[]> channelSlots = Map.of();
+    private volatile Map<Fixture, Map<String, int[]>> fixtureChannelSlots = Map.of();
 
     /**
      * Universe constructor with universe ID 0 and an empty clients list
@@ -71,6 +98,10 @@ public class DMXUniverse {
         }
         this.id = id;
         this.clients = clients;
+        for (DMXClient client : clients) {
+            attach(client);
+        }
+        buildIndex();
     }
 
     /**
@@ -80,6 +111,8 @@ public class DMXUniverse {
      */
     public void addClient(DMXClient client) {
         this.clients.add(client);
+        attach(client);
+        buildIndex();
     }
 
     /**
@@ -110,9 +143,10 @@ public class DMXUniverse {
      * @param value new value
      */
     public void update(String key, byte value) {
-        this.clients.stream()
-                .filter(c -> c.hasChannel(key))
-                .forEach(c -> c.setValue(key, value));
+        var slots = channelSlots.get(Mode.normalize(key));
+        if (slots != null) {
+            setSlots(slots, value);
+        }
     }
 
     /**
@@ -123,39 +157,151 @@ public class DMXUniverse {
      * @param value   new value
      */
     public void updateFixtures(Fixture fixture, String key, byte value) {
-        this.clients.stream()
-                .filter(c -> c.getFixture() == fixture && c.hasChannel(key))
-                .forEach(c -> c.setValue(key, value));
+        var slots = getFixtureSlots(fixture, key);
+        if (slots != null) {
+            setSlots(slots, value);
+        }
+    }
+
+    /**
+     * Get a handle to the channel with the given name of all the clients which have this channel
+     *
+     * @param key channel name
+     * @return {@link DMXChannelGroup}, empty if no client has the channel
+     */
+    public DMXChannelGroup group(String key) {
+        var slots = channelSlots.get(Mode.normalize(key));
+        return new DMXChannelGroup(this, slots == null ? new int[0] : slots);
     }
 
     /**
-     * Get the data
+     * Get a handle to the channel with the given name of the clients of the given fixture type
+     *
+     * @param fixture {@link Fixture}
+     * @param key     channel name
+     * @return {@link DMXChannelGroup}, empty if no client of the fixture type has the channel
+     */
+    public DMXChannelGroup group(Fixture fixture, String key) {
+        var slots = getFixtureSlots(fixture, key);
+        return new DMXChannelGroup(this, slots == null ? new int[0] : slots);
+    }
+
+    /**
+     * Get a copy of the data, up to the last channel used by a client
      *
      * @return byte array
      */
     public byte[] getData() {
-        var length = clients.stream()
-                .mapToInt(client -> client.getAddress() + client.getDataLength() - 1)
-                .max()
-                .orElse(0);
-        var data = new byte[length];
-        for (DMXClient client : clients) {
-            var startIndex = client.getAddress() - 1;
-            length = client.getDataLength();
-            for (var idx = 0; idx < length; idx++) {
-                data[startIndex + idx] = client.getValue(idx);
-            }
-        }
-        return data;
+        return Arrays.copyOf(frame, length);
     }
 
     /**
-     * Get the length
+     * Get the length, up to the last channel used by a client
      *
      * @return length
      */
     public int getLength() {
-        return getData().length;
+        return length;
+    }
+
+    /**
+     * Check if any value changed since the last snapshot or version check
+     *
+     * @return is dirty
+     */
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
+    /**
+     * Get the version of the frame, which increases when values were changed since the previous call
+     * to this method or {@link #snapshot()}. Can be used by multiple renderers to each track if the frame changed.
+     *
+     * @return version
+     */
+    public synchronized long getVersion() {
+        if (dirty.getAndSet(false)) {
+            version++;
+        }
+        return version;
+    }
+
+    /**
+     * Take a snapshot of the current frame. The snapshot is double-buffered: the returned array is owned by the
+     * universe and stays unchanged until the next-but-one snapshot, so a renderer can still be sending the previous
+     * snapshot while the next one is taken. Values changed during the snapshot are picked up by the next one.
+     * Only the first {@link #getLength()} bytes are used by clients, the remaining slots are 0.
+     *
+     * @return byte array of {@link #MAX_CHANNELS}
+     */
+    public synchronized byte[] snapshot() {
+        // Cleared before copying, so a change made while copying marks the frame as dirty again
+        if (dirty.getAndSet(false)) {
+            version++;
+        }
+        snapshotIndex ^= 1;
+        var snapshot = snapshots[snapshotIndex];
+        System.arraycopy(frame, 0, snapshot, 0, MAX_CHANNELS);
+        return snapshot;
+    }
+
+    /**
+     * Mark the frame as changed
+     */
+    void markDirty() {
+        dirty.set(true);
+    }
+
+    /**
+     * Change the value of the given zero-based slots
+     */
+    void setSlots(int[] slots, byte value) {
+        for (int slot : slots) {
+            frame[slot] = value;
+        }
+        dirty.set(true);
+    }
+
+    private int[] getFixtureSlots(Fixture fixture, String key) {
+        var slots = fixtureChannelSlots.get(fixture);
+        return slots == null ? null : slots.get(Mode.normalize(key));
+    }
+
+    /**
+     * Index the absolute slots per normalized channel name, for all clients and per fixture type.
+     * The index is rebuilt when a client is added, and replaced at once for concurrent readers.
+     */
+    private synchronized void buildIndex() {
+        var all = new HashMap<String, List<Integer>>();
+        var perFixture = new IdentityHashMap<Fixture, Map<String, List<Integer>>>();
+        for (DMXClient client : clients) {
+            var mode = client.getSelectedMode();
+            if (mode == null) {
+                continue;
+            }
+            for (Map.Entry<String, Integer> channel : mode.getChannelIndexes().entrySet()) {
+                var slot = client.getAddress() - 1 + channel.getValue();
+                all.computeIfAbsent(channel.getKey(), k -> new ArrayList<>()).add(slot);
+                perFixture.computeIfAbsent(client.getFixture(), f -> new HashMap<>())
+                        .computeIfAbsent(channel.getKey(), k -> new ArrayList<>()).add(slot);
+            }
+        }
+        var fixtures = new IdentityHashMap<Fixture, Map<String, int[]>>();
+        perFixture.forEach((fixture, slots) -> fixtures.put(fixture, toSlotArrays(slots)));
+        this.channelSlots = toSlotArrays(all);
+        this.fixtureChannelSlots = fixtures;
+    }
+
+    private static Map<String, int[]> toSlotArrays(Map<String, List<Integer>> slots) {
+        var result = new HashMap<String, int[]>();
+        slots.forEach((key, list) -> result.put(key, list.stream().mapToInt(Integer::intValue).toArray()));
+        return result;
+    }
+
+    private void attach(DMXClient client) {
+        client.attach(this, frame);
+        length = Math.max(length, client.getAddress() - 1 + client.getDataLength());
+        dirty.set(true);
     }
 
     /**
@@ -1,6 +1,13 @@
 package be.codewriter.dmx512.ofl.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.AbstractList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
 
 /**
  * OFL definition of a mode
@@ -14,6 +21,16 @@ public record Mode(
         String shortName,
         List<String> channels
 ) {
+    /**
+     * Mode constructor, the channels are copied into an unmodifiable list which holds the channel index,
+     * so the index is built once per mode, also when the mode is deserialized
+     */
+    public Mode {
+        if (channels != null && !(channels instanceof ChannelList)) {
+            channels = new ChannelList(channels);
+        }
+    }
+
     /**
      * Get the channel index for the given key (case independant)
      *
@@ -21,20 +38,63 @@ public record Mode(
      * @return index or -1 if not found
      */
     public int getChannelIndex(String key) {
-        if (channels == null || channels.isEmpty()) {
+        if (key == null) {
             return -1;
         }
-        var counter = 0;
-        for (var channel : channels) {
-            if (clean(channel).equalsIgnoreCase(clean(key))) {
-                return counter;
+        Integer index = getChannelIndexes().get(normalize(key));
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Get the index of all channels, derived from the channels
+     *
+     * @return unmodifiable map of normalized channel name and index
+     */
+    @JsonIgnore
+    public Map<String, Integer> getChannelIndexes() {
+        return channels == null ? Map.of() : ((ChannelList) channels).index;
+    }
+
+    /**
+     * Normalize a channel name, the same way it's done for the channel index:
+     * case independent, and ignoring spaces and slashes.
+     *
+     * @param key key (name) of the channel
+     * @return normalized name
+     */
+    public static String normalize(String key) {
+        return key.trim().toLowerCase(Locale.ROOT).replace("/", "").replace(" ", "");
+    }
+
+    /**
+     * Unmodifiable list of channels with the index of their normalized names.
+     * Equality is the one of a list, so the index doesn't change the equality of the mode.
+     */
+    private static final class ChannelList extends AbstractList<String> implements RandomAccess {
+        private final String[] channels;
+        private final Map<String, Integer> index;
+
+        private ChannelList(List<String> channels) {
+            // OFL allows null entries for unused channels, which List.copyOf doesn't
+            this.channels = channels.toArray(new String[0]);
+            var names = new HashMap<String, Integer>();
+            for (var i = 0; i < this.channels.length; i++) {
+                if (this.channels[i] != null) {
+                    // The first channel with a name wins, as it did when searching the list
+                    names.putIfAbsent(normalize(this.channels[i]), i);
+                }
             }
-            counter++;
+            this.index = Map.copyOf(names);
         }
-        return -1;
-    }
 
-    private String clean(String s) {
-        return s.trim().toLowerCase().replace("/", "").replace(" ", "");
+        @Override
+        public String get(int index) {
+            return channels[index];
+        }
+
+        @Override
+        public int size() {
+            return channels.length;
+        }
     }
 }
@@ -0,0 +1,146 @@
+package be.codewriter.dmx512.tool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer for delays in the microsecond range, like the break and mark after break of a DMX frame.
+ * <p>
+ * Parking a thread is cheap, but it wakes up later than requested by a platform-dependent amount.
+ * This timer parks for the largest part of a delay, and spins with {@link Thread#onSpinWait()} for the last part,
+ * which is as long as the overshoot of parking measured at startup. Short delays are spun completely,
+ * long delays use hardly any CPU.
+ * <p>
+ * The timer is thread-safe, the statistics combine the delays of all threads using it.
+ */
+public class PrecisionTimer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrecisionTimer.class.getName());
+    private static final int CALIBRATION_SAMPLES = 50;
+    private static final long MAX_SPIN_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final long spinThresholdNanos;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalJitterNanos = new LongAdder();
+    private final AtomicLong maxJitterNanos = new AtomicLong();
+
+    /**
+     * Constructor for a timer with the park granularity of this platform, which is calibrated once
+     */
+    public PrecisionTimer() {
+        this(Calibration.PARK_GRANULARITY_NANOS);
+    }
+
+    /**
+     * Constructor for a timer with the given spin threshold
+     *
+     * @param spinThresholdNanos remaining time of a delay which is spun instead of parked
+     */
+    public PrecisionTimer(long spinThresholdNanos) {
+        if (spinThresholdNanos < 0) {
+            throw new IllegalArgumentException("Spin threshold can't be negative");
+        }
+        this.spinThresholdNanos = spinThresholdNanos;
+    }
+
+    /**
+     * Wait for the given number of microseconds
+     *
+     * @param microseconds delay
+     */
+    public void sleepMicros(long microseconds) {
+        sleepNanos(TimeUnit.MICROSECONDS.toNanos(microseconds));
+    }
+
+    /**
+     * Wait for the given number of nanoseconds
+     *
+     * @param nanoseconds delay
+     */
+    public void sleepNanos(long nanoseconds) {
+        if (nanoseconds <= 0) {
+            return;
+        }
+        sleepUntil(System.nanoTime() + nanoseconds);
+    }
+
+    /**
+     * Wait until the given deadline, returns early when the thread is interrupted
+     *
+     * @param deadline value of {@link System#nanoTime()} to wait for
+     */
+    public void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > spinThresholdNanos) {
+            LockSupport.parkNanos(this, remaining - spinThresholdNanos);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+        long now;
+        while ((now = System.nanoTime()) - deadline < 0) {
+            Thread.onSpinWait();
+        }
+        record(now - deadline);
+    }
+
+    /**
+     * Get the remaining time of a delay which is spun instead of parked
+     *
+     * @return threshold in nanoseconds
+     */
+    public long getSpinThresholdNanos() {
+        return spinThresholdNanos;
+    }
+
+    /**
+     * Get the statistics of the delays since the timer was created or reset
+     *
+     * @return {@link TimingStatistics}
+     */
+    public TimingStatistics getStatistics() {
+        var delays = count.sum();
+        return new TimingStatistics(delays, delays == 0 ? 0 : totalJitterNanos.sum() / delays, maxJitterNanos.get());
+    }
+
+    /**
+     * Reset the statistics
+     */
+    public void resetStatistics() {
+        count.reset();
+        totalJitterNanos.reset();
+        maxJitterNanos.set(0);
+    }
+
+    private void record(long jitterNanos) {
+        count.increment();
+        totalJitterNanos.add(jitterNanos);
+        maxJitterNanos.accumulateAndGet(jitterNanos, Math::max);
+    }
+
+    /**
+     * Calibrated once, when the first timer is created with the platform granularity
+     */
+    private static final class Calibration {
+        private static final long PARK_GRANULARITY_NANOS = calibrate();
+
+        private static long calibrate() {
+            var samples = new long[CALIBRATION_SAMPLES];
+            for (var i = 0; i < CALIBRATION_SAMPLES; i++) {
+                long start = System.nanoTime();
+                LockSupport.parkNanos(1);
+                samples[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(samples);
+            // A high percentile, so the last part of most delays is spun
+            var granularity = Math.min(samples[CALIBRATION_SAMPLES * 9 / 10], MAX_SPIN_THRESHOLD_NANOS);
+            LOGGER.debug("Calibrated park granularity at {}ns", granularity);
+            return granularity;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package be.codewriter.dmx512.tool;
+
+/**
+ * Statistics of the delays of a {@link PrecisionTimer}.
+ * The jitter is the time between the requested end of a delay and the moment the timer returned.
+ *
+ * @param count              number of delays
+ * @param averageJitterNanos average jitter in nanoseconds
+ * @param maxJitterNanos     maximum jitter in nanoseconds
+ */
+public record TimingStatistics(
+        long count,
+        long averageJitterNanos,
+        long maxJitterNanos
+) {
+}
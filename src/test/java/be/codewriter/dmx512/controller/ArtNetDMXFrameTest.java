@@ -0,0 +1,75 @@
+package be.codewriter.dmx512.controller;
+
+import be.codewriter.dmx512.controller.ip.packet.ArtNetDMXFrame;
+import be.codewriter.dmx512.controller.ip.packet.ArtNetPacket;
+import be.codewriter.dmx512.tool.HexTool;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArtNetDMXFrameTest {
+
+    @Test
+    void shouldHaveSamePacketAsBuilder() {
+        var data = new byte[]{(byte) 0x01, (byte) 0x02, (byte) 0x03};
+        var frame = new ArtNetDMXFrame(1);
+        frame.update(data, data.length, (byte) 0);
+        assertEquals(HexTool.toHexString(ArtNetPacket.createArtNetDMXPacket(data, 1)),
+                HexTool.toHexString(Arrays.copyOf(frame.getArray(), frame.getLength())));
+    }
+
+    @Test
+    void shouldPatchLengthAndPaddingOnUpdate() {
+        var frame = new ArtNetDMXFrame(2, 1, 3, false);
+        frame.update(new byte[]{(byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04});
+        frame.update(new byte[]{(byte) 0x05, (byte) 0x06, (byte) 0x07});
+        assertAll(
+                () -> assertEquals(22, frame.getLength()),
+                () -> assertEquals("41 72 74 2D 4E 65 74 00 00 50 00 0E 02 00 12 03 00 04 05 06 07 00",
+                        HexTool.toHexString(Arrays.copyOf(frame.getArray(), frame.getLength())))
+        );
+    }
+
+    @Test
+    void shouldWriteDirectFrameIntoBuffer() {
+        var data = new byte[]{(byte) 0x01, (byte) 0x02};
+        var frame = new ArtNetDMXFrame(0, 0, 0, true);
+        frame.update(data, data.length, (byte) 0);
+        var target = ByteBuffer.allocate(ArtNetPacket.MAX_DMX_PACKET_LENGTH);
+        var written = frame.writeTo(target);
+        assertAll(
+                () -> assertThrows(IllegalStateException.class, frame::getArray),
+                () -> assertEquals(20, written),
+                () -> assertEquals(HexTool.toHexString(ArtNetPacket.createArtNetDMXPacket(data, 0)),
+                        HexTool.toHexString(Arrays.copyOf(target.array(), written)))
+        );
+    }
+
+    @Test
+    void shouldIncrementSequenceAndSkipZero() {
+        var frame = new ArtNetDMXFrame(0);
+        var sequences = new int[256];
+        for (var i = 0; i < sequences.length; i++) {
+            frame.update(new byte[]{(byte) i});
+            sequences[i] = frame.getArray()[12] & 0xFF;
+        }
+        assertAll(
+                () -> assertEquals(1, sequences[0]),
+                () -> assertEquals(255, sequences[254]),
+                () -> assertEquals(1, sequences[255], "Wraps around to 1, skipping 0")
+        );
+    }
+
+    @Test
+    void shouldRejectInvalidData() {
+        var frame = new ArtNetDMXFrame(0);
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> frame.update(new byte[0])),
+                () -> assertThrows(IllegalArgumentException.class, () -> frame.update(new byte[513])),
+                () -> assertThrows(IllegalArgumentException.class, () -> new ArtNetDMXFrame(16))
+        );
+    }
+}
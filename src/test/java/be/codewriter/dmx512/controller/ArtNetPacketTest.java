@@ -7,6 +7,8 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ArtNetPacketTest {
 
@@ -59,4 +61,22 @@ class ArtNetPacketTest {
                 () -> assertEquals(6, ArtNetPacket.getDmxDataLength(packet))
         );
     }
+
+    @Test
+    void shouldDecodeReceivedArtDMXPacketInPlace() {
+        var received = new byte[1024];
+        var packet = ArtNetPacket.createArtNetDMXPacket(new byte[]{(byte) 0x01, (byte) 0x02, (byte) 0x03}, 5);
+        packet[14] = 0x25; // SubNet and Universe
+        packet[15] = 0x03; // Net
+        System.arraycopy(packet, 0, received, 0, packet.length);
+        assertAll(
+                () -> assertTrue(ArtNetPacket.isArtDMXPacket(received, packet.length)),
+                () -> assertFalse(ArtNetPacket.isArtDMXPacket(received, ArtNetPacket.HEADER_LENGTH - 1)),
+                () -> assertFalse(ArtNetPacket.isArtDMXPacket(ArtNetPacket.createArtPollPacket(), 14)),
+                () -> assertEquals(0x0325, ArtNetPacket.getPortAddress(received)),
+                () -> assertEquals(4, ArtNetPacket.getDmxDataLength(received, packet.length)),
+                // Length in the header is limited to the received bytes
+                () -> assertEquals(2, ArtNetPacket.getDmxDataLength(received, ArtNetPacket.HEADER_LENGTH + 2))
+        );
+    }
 }
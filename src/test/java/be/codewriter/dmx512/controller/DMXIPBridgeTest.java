@@ -0,0 +1,174 @@
+package be.codewriter.dmx512.controller;
+
+import be.codewriter.dmx512.controller.ip.DMXIPBridge;
+import be.codewriter.dmx512.controller.ip.DMXIPController;
+import be.codewriter.dmx512.controller.ip.DMXIPReceiver;
+import be.codewriter.dmx512.controller.ip.IPProtocol;
+import be.codewriter.dmx512.controller.ip.IPTransport;
+import be.codewriter.dmx512.controller.ip.packet.ArtNetPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNSource;
+import be.codewriter.dmx512.tool.HexTool;
+import org.junit.jupiter.api.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DMXIPBridgeTest {
+
+    @Test
+    void shouldBridgeArtNetToMappedSACNUniverse() throws Exception {
+        var loopback = InetAddress.getLoopbackAddress();
+        try (var output = new DatagramSocket(0, loopback);
+             var sender = new DatagramSocket();
+             var bridge = new DMXIPBridge(IPProtocol.ARTNET, loopback, 0, loopback, output.getLocalPort(), new SACNSource(), null)) {
+            output.setSoTimeout(2_000);
+            bridge.map(0x12, 5);
+            bridge.start();
+
+            // Not mapped
+            var ignored = ArtNetPacket.createArtNetDMXPacket(new byte[]{9}, 1);
+            sender.send(new DatagramPacket(ignored, ignored.length, loopback, bridge.getInputPort()));
+            var packet = ArtNetPacket.createArtNetDMXPacket(new byte[]{1, 2, 3}, 2);
+            packet[14] = 0x12; // SubNet 1, Universe 2
+            sender.send(new DatagramPacket(packet, packet.length, loopback, bridge.getInputPort()));
+
+            var received = new DatagramPacket(new byte[1024], 1024);
+            output.receive(received);
+            var data = received.getData();
+            var length = received.getLength();
+            assertAll(
+                    () -> assertTrue(SACNPacket.isSACNDataPacket(data, length)),
+                    () -> assertEquals(5, SACNPacket.getUniverse(data)),
+                    // ArtNet pads to an even length
+                    () -> assertEquals(4, SACNPacket.getDmxDataLength(data, length)),
+                    () -> assertEquals("01 02 03 00", HexTool.toHexString(Arrays.copyOfRange(data, 126, 130))),
+                    () -> assertEquals(1, bridge.getForwardedPackets())
+            );
+        }
+    }
+
+    @Test
+    void shouldBridgeSACNToMappedArtNetPortAddress() throws Exception {
+        var loopback = InetAddress.getLoopbackAddress();
+        try (var output = new DatagramSocket(0, loopback);
+             var sender = new DatagramSocket();
+             var bridge = new DMXIPBridge(IPProtocol.SACN, loopback, 0, loopback, output.getLocalPort(), new SACNSource(), null)) {
+            output.setSoTimeout(2_000);
+            bridge.map(7, 0x0123, 2);
+            bridge.start();
+
+            var frame = new SACNSource().createFrame(8, 100, false);
+            frame.update((byte) 1, new byte[]{4, 5, 6});
+            sender.send(new DatagramPacket(frame.getArray(), frame.getLength(), loopback, bridge.getInputPort()));
+
+            var received = new DatagramPacket(new byte[1024], 1024);
+            output.receive(received);
+            var data = received.getData();
+            var length = received.getLength();
+            assertAll(
+                    () -> assertTrue(ArtNetPacket.isArtDMXPacket(data, length)),
+                    () -> assertEquals(0x0124, ArtNetPacket.getPortAddress(data)),
+                    () -> assertEquals("04 05 06 00", HexTool.toHexString(Arrays.copyOfRange(data, 18, length)))
+            );
+        }
+    }
+
+    @Test
+    void shouldBridgeSACNToArtNetBroadcastAddress() throws Exception {
+        var loopback = InetAddress.getLoopbackAddress();
+        try (var output = new DatagramSocket(0);
+             var sender = new DatagramSocket();
+             var bridge = new DMXIPBridge(IPProtocol.SACN, loopback, 0, InetAddress.getByName("255.255.255.255"),
+                     output.getLocalPort(), new SACNSource(), null)) {
+            output.setSoTimeout(2_000);
+            bridge.map(1, 0);
+            bridge.start();
+
+            var frame = new SACNSource().createFrame(1, 100, false);
+            frame.update((byte) 1, new byte[]{7, 8});
+            sender.send(new DatagramPacket(frame.getArray(), frame.getLength(), loopback, bridge.getInputPort()));
+
+            var received = new DatagramPacket(new byte[1024], 1024);
+            output.receive(received);
+            assertAll(
+                    () -> assertTrue(ArtNetPacket.isArtDMXPacket(received.getData(), received.getLength())),
+                    () -> assertEquals("07 08", HexTool.toHexString(Arrays.copyOfRange(received.getData(), 18, received.getLength())))
+            );
+        }
+    }
+
+    @Test
+    void shouldIgnorePreviewAndTerminatedSACNPackets() throws Exception {
+        var loopback = InetAddress.getLoopbackAddress();
+        try (var output = new DatagramSocket(0, loopback);
+             var sender = new DatagramSocket();
+             var bridge = new DMXIPBridge(IPProtocol.SACN, loopback, 0, loopback, output.getLocalPort(), new SACNSource(), null)) {
+            output.setSoTimeout(2_000);
+            bridge.map(1, 1);
+            bridge.start();
+
+            var frame = new SACNSource().createFrame(1, 100, false);
+            frame.update((byte) 1, SACNPacket.OPTION_PREVIEW_DATA, new byte[]{1}, 1);
+            sender.send(new DatagramPacket(frame.getArray(), frame.getLength(), loopback, bridge.getInputPort()));
+            frame.update((byte) 2, SACNPacket.OPTION_STREAM_TERMINATED, new byte[]{2}, 1);
+            sender.send(new DatagramPacket(frame.getArray(), frame.getLength(), loopback, bridge.getInputPort()));
+            frame.update((byte) 3, new byte[]{3});
+            sender.send(new DatagramPacket(frame.getArray(), frame.getLength(), loopback, bridge.getInputPort()));
+
+            var received = new DatagramPacket(new byte[1024], 1024);
+            output.receive(received);
+            assertAll(
+                    () -> assertEquals(3, received.getData()[18], "Only the live data is forwarded"),
+                    () -> assertEquals(1, bridge.getForwardedPackets())
+            );
+        }
+    }
+
+    @Test
+    void shouldJoinMulticastGroupOfMappedSACNUniverse() throws Exception {
+        var multicastInterface = DMXIPReceiver.getDefaultMulticastInterface();
+        assumeTrue(multicastInterface != null, "No multicast interface available");
+        var loopback = InetAddress.getLoopbackAddress();
+        try (var output = new DatagramSocket(0, loopback);
+             var bridge = new DMXIPBridge(IPProtocol.SACN, null, 0, loopback, output.getLocalPort(),
+                     new SACNSource(), multicastInterface)) {
+            output.setSoTimeout(2_000);
+            bridge.map(9, 1);
+            bridge.start();
+            assertTrue(bridge.isJoined(9));
+
+            var controller = new DMXIPController(SACNPacket.getMulticastAddress(1), IPProtocol.SACN,
+                    bridge.getInputPort(), new SACNSource(), IPTransport.DATAGRAM_CHANNEL, multicastInterface);
+            controller.render(9, new byte[]{42});
+            var received = new DatagramPacket(new byte[1024], 1024);
+            output.receive(received);
+            controller.close();
+
+            bridge.unmap(9);
+            assertAll(
+                    () -> assertEquals(42, received.getData()[18], "Multicast loopback"),
+                    () -> assertFalse(bridge.isJoined(9))
+            );
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidMapping() {
+        var loopback = InetAddress.getLoopbackAddress();
+        var toSACN = new DMXIPBridge(IPProtocol.ARTNET, loopback, 0, loopback, 5568, new SACNSource(), null);
+        var toArtNet = new DMXIPBridge(IPProtocol.SACN, loopback, 0, loopback, 6454, new SACNSource(), null);
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> toSACN.map(1, 0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> toSACN.map(0x8000, 1)),
+                () -> assertThrows(IllegalArgumentException.class, () -> toArtNet.map(1, 0x8000)),
+                () -> assertThrows(IllegalArgumentException.class, () -> toArtNet.map(0, 1)),
+                () -> assertThrows(IllegalArgumentException.class, () -> toArtNet.map(64000, 1))
+        );
+    }
+}
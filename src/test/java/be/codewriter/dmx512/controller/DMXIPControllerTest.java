@@ -3,16 +3,27 @@ package be.codewriter.dmx512.controller;
 import be.codewriter.dmx512.MotherObjects;
 import be.codewriter.dmx512.controller.ip.DMXIPController;
 import be.codewriter.dmx512.controller.ip.IPProtocol;
+import be.codewriter.dmx512.controller.ip.IPTransport;
+import be.codewriter.dmx512.controller.ip.packet.ArtNetPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNSource;
 import be.codewriter.dmx512.model.DMXUniverse;
 import be.codewriter.dmx512.tool.HexTool;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DMXIPControllerTest {
 
@@ -43,11 +54,119 @@ class DMXIPControllerTest {
         assertEquals("41 72 74 2D 4E 65 74 00 00 50 00 0E 00 00 01 00 00 04 01 02 03 00", HexTool.toHexString(poll), "Art-Net Data from bytes");
     }
 
-    @Disabled("SACN is todo...")
+    @Test
     void controllerWithSACNProtocolShouldHaveValidSACNDataFromBytes() throws UnknownHostException {
         var data = new byte[]{(byte) 0x01, (byte) 0x02, (byte) 0x03};
-        DMXIPController controller = new DMXIPController(InetAddress.getByName("127.0.0.1"), IPProtocol.SACN);
-        var poll = controller.createDataPacket(1, data);
-        assertEquals("41 72 74 2D 4E 65 74 00 00 50 00 0E 00 00 00 00 00 03 01 02 03", HexTool.toHexString(poll), "Art-Net Data from bytes");
+        var source = new SACNSource(UUID.fromString("00010203-0405-0607-0809-0a0b0c0d0e0f"), "Test");
+        DMXIPController controller = new DMXIPController(InetAddress.getByName("127.0.0.1"), source);
+        var first = controller.createDataPacket(1, data);
+        var second = controller.createDataPacket(1, data);
+        var otherUniverse = controller.createDataPacket(2, data);
+        assertAll(
+                () -> assertEquals(129, first.length, "Packet length"),
+                () -> assertEquals("00 01 02 03 04 05 06 07 08 09 0A 0B 0C 0D 0E 0F",
+                        HexTool.toHexString(Arrays.copyOfRange(first, 22, 38)), "CID"),
+                () -> assertEquals("00 00 00 01", HexTool.toHexString(Arrays.copyOfRange(first, 111, 115)), "Sequence, options, universe"),
+                () -> assertEquals("01 00 00 01", HexTool.toHexString(Arrays.copyOfRange(second, 111, 115)), "Next sequence"),
+                () -> assertEquals("00 00 00 02", HexTool.toHexString(Arrays.copyOfRange(otherUniverse, 111, 115)), "Sequence per universe"),
+                () -> assertEquals("00 01 02 03", HexTool.toHexString(Arrays.copyOfRange(first, 125, 129)), "Start code and data")
+        );
+    }
+
+    @Test
+    void controllerWithChannelTransportShouldSendArtNetData() throws IOException {
+        var data = new byte[]{(byte) 0x01, (byte) 0x02, (byte) 0x03};
+        try (var receiver = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            receiver.setSoTimeout(2_000);
+            DMXIPController controller = new DMXIPController(InetAddress.getLoopbackAddress(), IPProtocol.ARTNET,
+                    receiver.getLocalPort(), new SACNSource(), IPTransport.DATAGRAM_CHANNEL);
+            controller.render(1, data);
+
+            var received = new DatagramPacket(new byte[1024], 1024);
+            receiver.receive(received);
+            controller.close();
+
+            assertEquals("41 72 74 2D 4E 65 74 00 00 50 00 0E 01 00 01 00 00 04 01 02 03 00",
+                    HexTool.toHexString(Arrays.copyOf(received.getData(), received.getLength())), "Art-Net Data over channel");
+        }
+    }
+
+    @Test
+    void controllerWithChannelTransportShouldSendToBroadcastAddress() throws IOException {
+        try (var receiver = new DatagramSocket(0)) {
+            receiver.setSoTimeout(2_000);
+            DMXIPController controller = new DMXIPController(InetAddress.getByName("255.255.255.255"), IPProtocol.ARTNET,
+                    receiver.getLocalPort(), new SACNSource(), IPTransport.DATAGRAM_CHANNEL);
+            var connected = controller.isConnected();
+            controller.render(1, new byte[]{(byte) 0x01});
+            var stillConnected = controller.isConnected();
+            controller.close();
+
+            assertAll(
+                    () -> assertTrue(connected, "Connecting to a broadcast address is permitted"),
+                    () -> assertTrue(stillConnected, "Sending to a broadcast address is permitted")
+            );
+        }
+    }
+
+    @Test
+    void controllerShouldSendAllUniversesOfBatch() throws IOException {
+        var client1 = MotherObjects.fiveChannelClient((byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04, (byte) 0x05, 1);
+        var client2 = MotherObjects.fiveChannelClient((byte) 0x11, (byte) 0x12, (byte) 0x13, (byte) 0x14, (byte) 0x15, 1);
+        try (var receiver = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            receiver.setSoTimeout(2_000);
+            DMXIPController controller = new DMXIPController(InetAddress.getLoopbackAddress(), IPProtocol.ARTNET,
+                    receiver.getLocalPort());
+            controller.render(List.of(new DMXUniverse(1, client1), new DMXUniverse(2, client2)));
+
+            var first = new DatagramPacket(new byte[1024], 1024);
+            receiver.receive(first);
+            var second = new DatagramPacket(new byte[1024], 1024);
+            receiver.receive(second);
+            controller.close();
+
+            assertAll(
+                    () -> assertEquals("41 72 74 2D 4E 65 74 00 00 50 00 0E 01 00 01 00 00 06 01 02 03 04 05 00",
+                            HexTool.toHexString(Arrays.copyOf(first.getData(), first.getLength())), "Universe 1"),
+                    () -> assertEquals("41 72 74 2D 4E 65 74 00 00 50 00 0E 01 00 02 00 00 06 11 12 13 14 15 00",
+                            HexTool.toHexString(Arrays.copyOf(second.getData(), second.getLength())), "Universe 2")
+            );
+        }
+    }
+
+    @Test
+    void controllerInDeltaReceiveModeShouldReportChangedSlots() throws Exception {
+        try (var node = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            node.setSoTimeout(2_000);
+            DMXIPController controller = new DMXIPController(InetAddress.getLoopbackAddress(), IPProtocol.ARTNET,
+                    node.getLocalPort(), new SACNSource(), IPTransport.DATAGRAM_CHANNEL);
+            var changes = new LinkedBlockingQueue<String>();
+            controller.setDeltaReceive(true);
+            controller.addSlotChangeListener(image -> changes.add(image.getUniverse() + ":"
+                    + image.getChangedRangeStart(0) + "-" + image.getChangedRangeEnd(0)));
+
+            // The node learns the address of the controller from a sent packet
+            controller.render(1, new byte[]{0});
+            var received = new DatagramPacket(new byte[1024], 1024);
+            node.receive(received);
+
+            var first = ArtNetPacket.createArtNetDMXPacket(new byte[]{0, 5, 6, 0}, 3);
+            node.send(new DatagramPacket(first, first.length, received.getSocketAddress()));
+            node.send(new DatagramPacket(first, first.length, received.getSocketAddress()));
+            var second = ArtNetPacket.createArtNetDMXPacket(new byte[]{0, 5, 6, 7}, 3);
+            node.send(new DatagramPacket(second, second.length, received.getSocketAddress()));
+
+            var firstChange = changes.poll(2, TimeUnit.SECONDS);
+            var secondChange = changes.poll(2, TimeUnit.SECONDS);
+            var image = controller.getReceivedUniverse(3);
+            controller.close();
+
+            assertAll(
+                    () -> assertEquals("3:1-3", firstChange),
+                    () -> assertEquals("3:3-4", secondChange, "Duplicate frame is not reported"),
+                    () -> assertEquals(3, image.getFrameCount()),
+                    () -> assertEquals(7, image.getValue(3))
+            );
+        }
     }
 }
@@ -0,0 +1,167 @@
+package be.codewriter.dmx512.controller;
+
+import be.codewriter.dmx512.controller.change.DMXSlotChangeListener;
+import be.codewriter.dmx512.controller.change.DMXSourceFrameListener;
+import be.codewriter.dmx512.controller.ip.DMXIPController;
+import be.codewriter.dmx512.controller.ip.DMXIPReceiver;
+import be.codewriter.dmx512.controller.ip.IPProtocol;
+import be.codewriter.dmx512.controller.ip.IPTransport;
+import be.codewriter.dmx512.controller.ip.packet.ArtNetPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNFrame;
+import be.codewriter.dmx512.controller.ip.packet.SACNPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNSource;
+import org.junit.jupiter.api.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class DMXIPReceiverTest {
+
+    @Test
+    void shouldDispatchPerProtocolAndUniverse() throws Exception {
+        var changes = new LinkedBlockingQueue<String>();
+        try (var receiver = new DMXIPReceiver(InetAddress.getLoopbackAddress(), 0, 0);
+             var sender = new DatagramSocket()) {
+            receiver.subscribe(IPProtocol.ARTNET, 0x0102, image -> changes.add("ArtNet " + image.getUniverse()
+                    + " " + image.getChangedRangeStart(0) + "-" + image.getChangedRangeEnd(0)));
+            receiver.subscribe(IPProtocol.SACN, 2, image -> changes.add("sACN " + image.getUniverse()
+                    + " " + image.getChangedRangeStart(0) + "-" + image.getChangedRangeEnd(0)));
+            receiver.start();
+            var loopback = InetAddress.getLoopbackAddress();
+
+            // Not subscribed
+            var ignored = ArtNetPacket.createArtNetDMXPacket(new byte[]{1, 2}, 3);
+            sender.send(new DatagramPacket(ignored, ignored.length, loopback, receiver.getArtNetPort()));
+
+            // Net 1, SubNet 0, Universe 2
+            var artNet = ArtNetPacket.createArtNetDMXPacket(new byte[]{0, 0, 9, 9}, 2);
+            artNet[15] = 0x01;
+            sender.send(new DatagramPacket(artNet, artNet.length, loopback, receiver.getArtNetPort()));
+
+            var frame = new SACNSource().createFrame(2, 100, false);
+            frame.update((byte) 1, new byte[]{7});
+            sender.send(new DatagramPacket(frame.getArray(), frame.getLength(), loopback, receiver.getSACNPort()));
+
+            var first = changes.poll(2, TimeUnit.SECONDS);
+            var second = changes.poll(2, TimeUnit.SECONDS);
+            assertAll(
+                    () -> assertEquals("ArtNet 258 2-4", first),
+                    () -> assertEquals("sACN 2 0-1", second),
+                    () -> assertNull(receiver.getUniverse(IPProtocol.ARTNET, 3)),
+                    () -> assertEquals(9, receiver.getUniverse(IPProtocol.ARTNET, 0x0102).getValue(3)),
+                    () -> assertEquals(3, receiver.getReceivedPackets())
+            );
+        }
+    }
+
+    @Test
+    void shouldSkipPreviewAndNotifyTerminatedSource() throws Exception {
+        var events = new LinkedBlockingQueue<String>();
+        try (var receiver = new DMXIPReceiver(InetAddress.getLoopbackAddress(), -1, 0);
+             var sender = new DatagramSocket()) {
+            receiver.subscribeFrames(IPProtocol.SACN, 3, new DMXSourceFrameListener() {
+                @Override
+                public void notify(int universe, int sourceId, int priority, byte[] data, int offset, int length) {
+                    events.add("frame " + data[offset]);
+                }
+
+                @Override
+                public void removeSource(int universe, int sourceId) {
+                    events.add("removed " + universe);
+                }
+            });
+            receiver.start();
+            var frame = new SACNSource().createFrame(3, 100, false);
+            frame.update((byte) 1, SACNPacket.OPTION_PREVIEW_DATA, new byte[]{1}, 1);
+            sender.send(new DatagramPacket(frame.getArray(), frame.getLength(), InetAddress.getLoopbackAddress(), receiver.getSACNPort()));
+            frame.update((byte) 2, (byte) 0, new byte[]{2}, 1);
+            sender.send(new DatagramPacket(frame.getArray(), frame.getLength(), InetAddress.getLoopbackAddress(), receiver.getSACNPort()));
+            frame.update((byte) 3, SACNPacket.OPTION_STREAM_TERMINATED, new byte[]{3}, 1);
+            sender.send(new DatagramPacket(frame.getArray(), frame.getLength(), InetAddress.getLoopbackAddress(), receiver.getSACNPort()));
+
+            var first = events.poll(2, TimeUnit.SECONDS);
+            var second = events.poll(2, TimeUnit.SECONDS);
+            assertAll(
+                    () -> assertEquals("frame 2", first, "Preview data is skipped"),
+                    () -> assertEquals("removed 3", second, "Terminated stream isn't submitted as data"),
+                    () -> assertNull(events.poll(100, TimeUnit.MILLISECONDS))
+            );
+        }
+    }
+
+    @Test
+    void shouldIdentifySourcesByExactCid() throws Exception {
+        var sourceIds = new LinkedBlockingQueue<Integer>();
+        try (var receiver = new DMXIPReceiver(InetAddress.getLoopbackAddress(), -1, 0);
+             var sender = new DatagramSocket()) {
+            receiver.subscribeFrames(IPProtocol.SACN, 1, (universe, sourceId, priority, data, offset, length) ->
+                    sourceIds.add(sourceId));
+            receiver.start();
+            // The last two CID bytes 0x00 0x1F and 0x01 0x00 give the same 31-polynomial hash
+            var first = new SACNSource(new UUID(0, 0x001F), "First").createFrame(1, 100, false);
+            var second = new SACNSource(new UUID(0, 0x0100), "Second").createFrame(1, 100, false);
+            for (var frame : new SACNFrame[]{first, second, first}) {
+                frame.update((byte) 1, new byte[]{1});
+                sender.send(new DatagramPacket(frame.getArray(), frame.getLength(),
+                        InetAddress.getLoopbackAddress(), receiver.getSACNPort()));
+            }
+
+            var firstId = sourceIds.poll(2, TimeUnit.SECONDS);
+            var secondId = sourceIds.poll(2, TimeUnit.SECONDS);
+            var firstAgain = sourceIds.poll(2, TimeUnit.SECONDS);
+            assertAll(
+                    () -> assertNotEquals(firstId, secondId),
+                    () -> assertEquals(firstId, firstAgain)
+            );
+        }
+    }
+
+    @Test
+    void shouldIgnoreUniverseAfterLastUnsubscribe() {
+        var receiver = new DMXIPReceiver(InetAddress.getLoopbackAddress(), 0, -1);
+        DMXSlotChangeListener listener = image -> {
+        };
+        receiver.subscribe(IPProtocol.SACN, 5, listener);
+        assertNotNull(receiver.getUniverse(IPProtocol.SACN, 5));
+        receiver.unsubscribe(IPProtocol.SACN, 5, listener);
+        assertAll(
+                () -> assertNull(receiver.getUniverse(IPProtocol.SACN, 5)),
+                () -> assertThrows(IllegalArgumentException.class, () -> receiver.subscribe(IPProtocol.SACN, 0, listener)),
+                () -> assertThrows(IllegalArgumentException.class, () -> receiver.subscribe(IPProtocol.ARTNET, 0x8000, listener)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new DMXIPReceiver(null, -1, -1))
+        );
+    }
+
+    @Test
+    void shouldReceiveJoinedMulticastUniverse() throws Exception {
+        var multicastInterface = DMXIPReceiver.getDefaultMulticastInterface();
+        assumeTrue(multicastInterface != null, "No multicast interface available");
+        var values = new LinkedBlockingQueue<Byte>();
+        DMXSlotChangeListener listener = image -> values.add(image.getValue(0));
+        try (var receiver = new DMXIPReceiver(null, -1, 0, multicastInterface)) {
+            receiver.start();
+            receiver.subscribe(IPProtocol.SACN, 7, listener);
+            assertTrue(receiver.isJoined(7));
+
+            var controller = new DMXIPController(SACNPacket.getMulticastAddress(1), IPProtocol.SACN,
+                    receiver.getSACNPort(), new SACNSource(), IPTransport.DATAGRAM_CHANNEL, multicastInterface);
+            controller.render(7, new byte[]{42});
+            var received = values.poll(2, TimeUnit.SECONDS);
+            controller.close();
+
+            receiver.unsubscribe(IPProtocol.SACN, 7, listener);
+            assertAll(
+                    () -> assertTrue(controller.isMulticast()),
+                    () -> assertFalse(receiver.isJoined(7)),
+                    () -> assertEquals((byte) 42, received, "Multicast loopback")
+            );
+        }
+    }
+}
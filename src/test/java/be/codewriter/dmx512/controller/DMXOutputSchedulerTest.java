@@ -0,0 +1,212 @@
+package be.codewriter.dmx512.controller;
+
+import be.codewriter.dmx512.MotherObjects;
+import be.codewriter.dmx512.model.DMXUniverse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DMXOutputSchedulerTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void shouldRejectInvalidKeepAliveInterval() {
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> new DMXOutputScheduler(44, null)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new DMXOutputScheduler(44, Duration.ZERO)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new DMXOutputScheduler(44, Duration.ofMillis(-1)))
+        );
+    }
+
+    @Test
+    void shouldSendFramesFromSchedulerThread() throws InterruptedException {
+        var client = MotherObjects.fiveChannelClient((byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04, (byte) 0x05, 1);
+        var initial = new CountDownLatch(1);
+        var changed = new CountDownLatch(1);
+        var controller = new RecordingController() {
+            @Override
+            public void render(int id, byte[] data) {
+                super.render(id, data);
+                if (data[0] == (byte) 0x10) {
+                    changed.countDown();
+                }
+                initial.countDown();
+            }
+        };
+        var scheduler = new DMXOutputScheduler(100, Duration.ofHours(1));
+        scheduler.register(controller, new DMXUniverse(1, client));
+        scheduler.start();
+
+        try {
+            var initialSent = initial.await(5, TimeUnit.SECONDS);
+            client.setValue("red", (byte) 0x10);
+            var changeSent = changed.await(5, TimeUnit.SECONDS);
+
+            assertAll(
+                    () -> assertTrue(scheduler.isRunning(), "Running"),
+                    () -> assertTrue(initialSent, "Initial frame"),
+                    () -> assertTrue(changeSent, "Frame after change")
+            );
+        } finally {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    void shouldOnlySendChangedUniverses() {
+        var client = MotherObjects.fiveChannelClient((byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04, (byte) 0x05, 1);
+        var controller = new RecordingController();
+        var scheduler = new DMXOutputScheduler(100, Duration.ofHours(1));
+        scheduler.register(controller, new DMXUniverse(1, client));
+
+        scheduler.send(0);
+        scheduler.send(10 * MILLIS);
+        var afterStart = controller.frames.size();
+        client.setValue("red", (byte) 0x10);
+        scheduler.send(20 * MILLIS);
+        scheduler.send(30 * MILLIS);
+
+        assertAll(
+                () -> assertEquals(1, afterStart, "Initial frame"),
+                () -> assertEquals(2, controller.frames.size(), "Frame after change"),
+                () -> assertEquals((byte) 0x10, controller.frames.getLast()[0], "Changed value")
+        );
+    }
+
+    @Test
+    void shouldResendUnchangedUniversesAtKeepAliveInterval() {
+        var client = MotherObjects.fiveChannelClient((byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04, (byte) 0x05, 1);
+        var controller = new RecordingController();
+        var scheduler = new DMXOutputScheduler(100, Duration.ofMillis(100));
+        scheduler.register(controller, new DMXUniverse(1, client));
+
+        scheduler.send(0);
+        scheduler.send(50 * MILLIS);
+        var beforeKeepAlive = controller.frames.size();
+        scheduler.send(100 * MILLIS);
+        scheduler.send(150 * MILLIS);
+        var afterKeepAlive = controller.frames.size();
+        scheduler.send(200 * MILLIS);
+
+        assertAll(
+                () -> assertEquals(1, beforeKeepAlive, "Initial frame"),
+                () -> assertEquals(2, afterKeepAlive, "First keep-alive frame"),
+                () -> assertEquals(3, controller.frames.size(), "Second keep-alive frame")
+        );
+    }
+
+    @Test
+    void shouldSendChangesMadeWhileDisconnectedAfterReconnect() {
+        var client = MotherObjects.fiveChannelClient((byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04, (byte) 0x05, 1);
+        var controller = new RecordingController();
+        var scheduler = new DMXOutputScheduler(100, Duration.ofHours(1));
+        scheduler.register(controller, new DMXUniverse(1, client));
+
+        scheduler.send(0);
+        controller.connected = false;
+        scheduler.send(10 * MILLIS);
+        client.setValue("red", (byte) 0x20);
+        scheduler.send(20 * MILLIS);
+        var whileDisconnected = controller.frames.size();
+        controller.connected = true;
+        scheduler.send(30 * MILLIS);
+
+        assertAll(
+                () -> assertEquals(1, whileDisconnected, "Only the initial frame"),
+                () -> assertEquals(2, controller.frames.size(), "Change sent after reconnect"),
+                () -> assertEquals((byte) 0x20, controller.frames.getLast()[0], "Changed value")
+        );
+    }
+
+    @Test
+    void shouldResendChangeWhenSendFailed() {
+        var client = MotherObjects.fiveChannelClient((byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04, (byte) 0x05, 1);
+        var controller = new RecordingController();
+        var scheduler = new DMXOutputScheduler(100, Duration.ofHours(1));
+        scheduler.register(controller, new DMXUniverse(1, client));
+
+        scheduler.send(0);
+        controller.failSends = true;
+        client.setValue("red", (byte) 0x30);
+        scheduler.send(10 * MILLIS);
+        var whileFailing = controller.frames.size();
+        controller.failSends = false;
+        controller.connected = true;
+        scheduler.send(20 * MILLIS);
+
+        assertAll(
+                () -> assertEquals(1, whileFailing, "Only the initial frame"),
+                () -> assertEquals(2, controller.frames.size(), "Change sent again after reconnect"),
+                () -> assertEquals((byte) 0x30, controller.frames.getLast()[0], "Changed value")
+        );
+    }
+
+    private static class RecordingController implements DMXController {
+        private final List<byte[]> frames = new ArrayList<>();
+        private volatile boolean connected = true;
+        // Like DMXIPController, a failed send disconnects without throwing
+        private volatile boolean failSends = false;
+
+        @Override
+        public DMXControllerType getType() {
+            return DMXControllerType.IP;
+        }
+
+        @Override
+        public String getProtocolName() {
+            return "TEST";
+        }
+
+        @Override
+        public String getAddress() {
+            return "test";
+        }
+
+        @Override
+        public boolean connect() {
+            return true;
+        }
+
+        @Override
+        public void render(DMXUniverse universe) {
+            render(universe.getId(), universe.getData());
+        }
+
+        @Override
+        public void render(int id, byte[] data) {
+            if (failSends) {
+                connected = false;
+                return;
+            }
+            synchronized (frames) {
+                frames.add(data.clone());
+            }
+        }
+
+        @Override
+        public void render(Collection<DMXUniverse> universes) {
+            universes.forEach(this::render);
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+    }
+}
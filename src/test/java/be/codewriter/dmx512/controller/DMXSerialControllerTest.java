@@ -0,0 +1,95 @@
+package be.codewriter.dmx512.controller;
+
+import be.codewriter.dmx512.controller.serial.DMXSerialController;
+import be.codewriter.dmx512.controller.serial.SerialProtocol;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DMXSerialControllerTest {
+
+    @Test
+    void shouldCalculateMinimumFramePeriod() {
+        assertAll(
+                // Break 88 + MAB 8 + 513 slots of 44
+                () -> assertEquals(TimeUnit.MICROSECONDS.toNanos(22_668), DMXSerialController.getMinimumFramePeriodNanos(512)),
+                () -> assertEquals(TimeUnit.MICROSECONDS.toNanos(96 + 33 * 44), DMXSerialController.getMinimumFramePeriodNanos(32)),
+                // Never shorter than the minimum break-to-break time
+                () -> assertEquals(TimeUnit.MICROSECONDS.toNanos(DMXSerialController.DMX_MIN_BREAK_TO_BREAK_US),
+                        DMXSerialController.getMinimumFramePeriodNanos(1)),
+                () -> assertThrows(IllegalArgumentException.class, () -> DMXSerialController.getMinimumFramePeriodNanos(513))
+        );
+    }
+
+    @Test
+    void shouldConfigureFrameRate() {
+        var controller = new DMXSerialController("not-existing-port");
+        assertAll(
+                () -> assertFalse(controller.isConnected()),
+                () -> assertEquals(DMXSerialController.DEFAULT_FRAME_RATE, controller.getFrameRate(), 0.01),
+                () -> assertFalse(controller.isAdaptiveFrameRate())
+        );
+
+        controller.setFrameRate(44);
+        controller.setAdaptiveFrameRate(true);
+
+        assertAll(
+                () -> assertEquals(44, controller.getFrameRate(), 0.01),
+                () -> assertTrue(controller.isAdaptiveFrameRate()),
+                () -> assertThrows(IllegalArgumentException.class, () -> controller.setFrameRate(0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> controller.setFrameRate(1_000))
+        );
+    }
+
+    @Test
+    void shouldConfigureMinimumFrameSpacing() {
+        var controller = new DMXSerialController("not-existing-port");
+        assertEquals(Duration.ZERO, controller.getMinimumFrameSpacing());
+
+        controller.setMinimumFrameSpacing(Duration.ofMillis(25));
+
+        assertAll(
+                () -> assertEquals(Duration.ofMillis(25), controller.getMinimumFrameSpacing()),
+                () -> assertThrows(IllegalArgumentException.class, () -> controller.setMinimumFrameSpacing(null)),
+                () -> assertThrows(IllegalArgumentException.class, () -> controller.setMinimumFrameSpacing(Duration.ofMillis(-1)))
+        );
+    }
+
+    @Test
+    void shouldConfigureInterSlotSpacing() {
+        var controller = new DMXSerialController("not-existing-port", SerialProtocol.FTDI_CHIP_DIRECT);
+        assertEquals(Duration.ZERO, controller.getInterSlotSpacing());
+
+        controller.setInterSlotSpacing(Duration.ofNanos(44_000));
+
+        assertAll(
+                () -> assertEquals(Duration.ofNanos(44_000), controller.getInterSlotSpacing()),
+                () -> assertThrows(IllegalArgumentException.class, () -> controller.setInterSlotSpacing(Duration.ofSeconds(1))),
+                () -> assertThrows(IllegalArgumentException.class, () -> controller.setInterSlotSpacing(null))
+        );
+    }
+
+    @Test
+    void shouldOnlyRequestWidgetParametersFromEnttecPro() {
+        var generic = new DMXSerialController("not-existing-port", SerialProtocol.GENERIC_SERIAL);
+        var enttec = new DMXSerialController("not-existing-port", SerialProtocol.ENTTEC_OPEN_DMX);
+        var enttecPro = new DMXSerialController("not-existing-port", SerialProtocol.ENTTEC_USB_PRO);
+
+        assertAll(
+                () -> assertThrows(IllegalStateException.class, generic::requestWidgetParameters),
+                () -> assertThrows(IllegalStateException.class, enttec::requestWidgetParameters),
+                () -> assertThrows(IllegalStateException.class, () -> enttec.setReceiveOnChange(true)),
+                () -> assertTrue(enttecPro.requestWidgetParameters().isCompletedExceptionally()),
+                () -> assertEquals("ENTTEC_USB_PRO", enttecPro.getProtocolName()),
+                () -> assertFalse(enttecPro.setReceiveOnChange(true)),
+                () -> assertEquals(0, enttecPro.getReceivedData().length)
+        );
+    }
+}
@@ -0,0 +1,65 @@
+package be.codewriter.dmx512.controller;
+
+import be.codewriter.dmx512.controller.change.DMXUniverseImage;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DMXUniverseImageTest {
+
+    @Test
+    void shouldReportChangedRanges() {
+        var image = new DMXUniverseImage(1);
+        var data = new byte[16];
+        assertFalse(image.update(data, 0, 8), "Zero values are not a change");
+
+        data[1] = 1;
+        data[2] = 2;
+        data[5] = 5;
+        assertTrue(image.update(data, 0, 8));
+        assertAll(
+                () -> assertEquals(2, image.getChangedRangeCount()),
+                () -> assertEquals(1, image.getChangedRangeStart(0)),
+                () -> assertEquals(3, image.getChangedRangeEnd(0)),
+                () -> assertEquals(5, image.getChangedRangeStart(1)),
+                () -> assertEquals(6, image.getChangedRangeEnd(1)),
+                () -> assertEquals(5, image.getValue(5)),
+                () -> assertEquals(2, image.getFrameCount())
+        );
+
+        assertFalse(image.update(data, 0, 8), "Same frame again");
+        assertEquals(0, image.getChangedRangeCount());
+    }
+
+    @Test
+    void shouldReadFromOffsetAndClearShorterFrame() {
+        var image = new DMXUniverseImage(2);
+        var packet = new byte[]{(byte) 0xFF, (byte) 0xFF, 1, 2, 3, 4};
+        assertTrue(image.update(packet, 2, 4));
+        assertAll(
+                () -> assertEquals(4, image.getLength()),
+                () -> assertEquals(0, image.getChangedRangeStart(0)),
+                () -> assertEquals(4, image.getChangedRangeEnd(0))
+        );
+
+        packet[3] = 9;
+        assertTrue(image.update(packet, 2, 2));
+        assertAll(
+                () -> assertEquals(2, image.getLength()),
+                () -> assertEquals(1, image.getChangedRangeCount(), "Changed slot and cleared slots are merged"),
+                () -> assertEquals(1, image.getChangedRangeStart(0)),
+                () -> assertEquals(4, image.getChangedRangeEnd(0)),
+                () -> assertEquals(0, image.getValue(3))
+        );
+    }
+
+    @Test
+    void shouldRejectInvalidRange() {
+        var image = new DMXUniverseImage(1);
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> image.update(new byte[600], 0, 513)),
+                () -> assertThrows(IllegalArgumentException.class, () -> image.update(new byte[10], 5, 6)),
+                () -> assertThrows(IndexOutOfBoundsException.class, () -> image.getChangedRangeStart(0))
+        );
+    }
+}
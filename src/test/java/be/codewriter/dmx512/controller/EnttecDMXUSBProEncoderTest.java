@@ -0,0 +1,85 @@
+package be.codewriter.dmx512.controller;
+
+import be.codewriter.dmx512.controller.serial.builder.EnttecDMXUSBProBuilder;
+import be.codewriter.dmx512.controller.serial.builder.EnttecDMXUSBProEncoder;
+import be.codewriter.dmx512.controller.serial.builder.EnttecDMXUSBProParser;
+import be.codewriter.dmx512.tool.HexTool;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EnttecDMXUSBProEncoderTest {
+
+    @Test
+    void shouldEncodeDmxData() {
+        var encoder = new EnttecDMXUSBProEncoder();
+        var length = encoder.encode(new byte[]{(byte) 0x01, (byte) 0x02, (byte) 0x03});
+        assertEquals("7E 06 04 00 00 01 02 03 E7", HexTool.toHexString(Arrays.copyOf(encoder.getBuffer(), length)));
+    }
+
+    @Test
+    void shouldEscapeSpecialBytes() {
+        var encoder = new EnttecDMXUSBProEncoder();
+        var length = encoder.encode(new byte[]{(byte) 0x7E, (byte) 0xE7, (byte) 0x7D, (byte) 0xFF});
+        assertEquals("7E 06 08 00 00 7D 5E 7D C7 7D 5D FF E7", HexTool.toHexString(Arrays.copyOf(encoder.getBuffer(), length)));
+    }
+
+    @Test
+    void shouldNotEscapeRawDmxData() {
+        var encoder = new EnttecDMXUSBProEncoder();
+        var data = new byte[]{(byte) 0x01, (byte) 0x7E, (byte) 0xE7, (byte) 0x7D, (byte) 0xFF};
+        var length = encoder.encodeRaw(data, data.length);
+        assertAll(
+                () -> assertEquals(5 + 1 + data.length, length),
+                () -> assertEquals("7E 06 06 00 00 01 7E E7 7D FF E7", HexTool.toHexString(Arrays.copyOf(encoder.getBuffer(), length)))
+        );
+    }
+
+    @Test
+    void shouldReuseBufferAndMatchBuilder() throws IOException {
+        var encoder = new EnttecDMXUSBProEncoder();
+        var buffer = encoder.getBuffer();
+        var full = new byte[512];
+        Arrays.fill(full, (byte) 0x7E);
+
+        var fullLength = encoder.encode(full);
+        var shortLength = encoder.encode(new byte[]{(byte) 0x10, (byte) 0x20}, 1);
+
+        assertAll(
+                () -> assertEquals(EnttecDMXUSBProEncoder.MAX_PACKET_LENGTH, fullLength),
+                () -> assertEquals(7, shortLength),
+                () -> assertSame(buffer, encoder.getBuffer()),
+                () -> assertArrayEquals(EnttecDMXUSBProBuilder.createEnttecDMXPacket(new byte[]{(byte) 0x10}),
+                        Arrays.copyOf(encoder.getBuffer(), shortLength))
+        );
+    }
+
+    @Test
+    void shouldEncodeMessageWithLabel() {
+        var encoder = new EnttecDMXUSBProEncoder();
+        var length = encoder.encode(EnttecDMXUSBProParser.LABEL_SET_RECEIVE_MODE, new byte[]{0x01}, 1);
+        var message = HexTool.toHexString(Arrays.copyOf(encoder.getBuffer(), length));
+        var unescaped = encoder.encode(EnttecDMXUSBProParser.LABEL_SET_RECEIVE_MODE, new byte[]{0x7E}, 1);
+        assertAll(
+                () -> assertEquals("7E 08 01 00 01 E7", message),
+                () -> assertEquals(6, unescaped, "Message data isn't escaped")
+        );
+    }
+
+    @Test
+    void shouldRejectInvalidData() {
+        var encoder = new EnttecDMXUSBProEncoder();
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> encoder.encode(null)),
+                () -> assertThrows(IllegalArgumentException.class, () -> encoder.encode(new byte[513])),
+                () -> assertThrows(IllegalArgumentException.class, () -> encoder.encode(new byte[2], 3))
+        );
+    }
+}
@@ -0,0 +1,70 @@
+package be.codewriter.dmx512.controller;
+
+import be.codewriter.dmx512.controller.serial.builder.EnttecDMXUSBProEncoder;
+import be.codewriter.dmx512.controller.serial.builder.EnttecDMXUSBProParser;
+import be.codewriter.dmx512.tool.HexTool;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EnttecDMXUSBProParserTest {
+
+    private final List<String> messages = new ArrayList<>();
+    private final EnttecDMXUSBProParser parser = new EnttecDMXUSBProParser((label, data, length) ->
+            messages.add(label + ": " + HexTool.toHexString(Arrays.copyOf(data, length))));
+
+    @Test
+    void shouldParseMessageFedInParts() {
+        var message = new byte[]{(byte) 0x7E, 0x03, 0x05, 0x00, 0x2C, 0x01, 0x09, 0x01, 0x28, (byte) 0xE7};
+
+        for (var i = 0; i < message.length; i++) {
+            parser.feed(message, i, 1);
+        }
+
+        assertAll(
+                () -> assertEquals(List.of("3: 2C 01 09 01 28"), messages),
+                () -> assertEquals(0, parser.available())
+        );
+    }
+
+    @Test
+    void shouldSkipInvalidBytes() {
+        var data = new byte[]{
+                0x01, 0x02,
+                // Start without valid end
+                (byte) 0x7E, 0x05, 0x01, 0x00, 0x00, 0x00,
+                (byte) 0x7E, 0x08, 0x01, 0x00, 0x01, (byte) 0xE7,
+                // Start with too large length
+                (byte) 0x7E, 0x05, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0x7E, 0x09, 0x00, 0x00, (byte) 0xE7};
+
+        parser.feed(data, 0, data.length);
+
+        assertEquals(List.of("8: 01", "9: "), messages);
+    }
+
+    @Test
+    void shouldParseMessagesAroundTheRingBuffer() {
+        var encoder = new EnttecDMXUSBProEncoder();
+        var dmx = new byte[300];
+        Arrays.fill(dmx, (byte) 0x11);
+        var length = encoder.encode(dmx);
+        var message = Arrays.copyOf(encoder.getBuffer(), length);
+
+        for (var i = 0; i < 20; i++) {
+            parser.feed(message, 0, 100);
+            parser.feed(message, 100, message.length - 100);
+        }
+
+        assertAll(
+                () -> assertEquals(20, messages.size()),
+                () -> assertEquals(messages.getFirst(), messages.getLast()),
+                () -> assertEquals(0, parser.available())
+        );
+    }
+}
@@ -0,0 +1,109 @@
+package be.codewriter.dmx512.controller;
+
+import be.codewriter.dmx512.controller.ip.packet.SACNFrame;
+import be.codewriter.dmx512.controller.ip.packet.SACNPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNSource;
+import be.codewriter.dmx512.tool.HexTool;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SACNFrameTest {
+
+    private static final byte[] CID = new byte[]{
+            0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09, 0x0A, 0x0B, 0x0C, 0x0D, 0x0E, 0x0F, 0x10
+    };
+
+    @Test
+    void shouldHaveValidFullUniversePacket() {
+        var frame = new SACNFrame(1, 100, CID, "DMX512", false);
+        frame.update((byte) 5, new byte[512]);
+        var packet = frame.getArray();
+        assertAll(
+                () -> assertEquals(638, frame.getLength()),
+                () -> assertEquals("00 10 00 00 41 53 43 2D 45 31 2E 31 37 00 00 00",
+                        HexTool.toHexString(Arrays.copyOfRange(packet, 0, 16)), "Preamble"),
+                () -> assertEquals("72 6E 00 00 00 04", HexTool.toHexString(Arrays.copyOfRange(packet, 16, 22)), "Root layer"),
+                () -> assertEquals(HexTool.toHexString(CID), HexTool.toHexString(Arrays.copyOfRange(packet, 22, 38)), "CID"),
+                () -> assertEquals("72 58 00 00 00 02 44 4D 58 35 31 32 00",
+                        HexTool.toHexString(Arrays.copyOfRange(packet, 38, 51)), "Framing layer"),
+                () -> assertEquals("64 00 00 05 00 00 01", HexTool.toHexString(Arrays.copyOfRange(packet, 108, 115)),
+                        "Priority, sync, sequence, options, universe"),
+                () -> assertEquals("72 0B 02 A1 00 00 00 01 02 01 00", HexTool.toHexString(Arrays.copyOfRange(packet, 115, 126)),
+                        "DMP layer and start code")
+        );
+    }
+
+    @Test
+    void shouldPatchFramePerUpdate() {
+        var frame = new SACNFrame(2, 100, CID, "", false);
+        frame.update((byte) 1, new byte[512]);
+        frame.update((byte) 2, SACNPacket.OPTION_PREVIEW_DATA, new byte[]{(byte) 0x11, (byte) 0x22, (byte) 0x33}, 3);
+        var packet = frame.getArray();
+        assertAll(
+                () -> assertEquals(129, frame.getLength()),
+                () -> assertEquals(129, frame.getBuffer().remaining()),
+                () -> assertEquals("70 71", HexTool.toHexString(Arrays.copyOfRange(packet, 16, 18)), "Root length"),
+                () -> assertEquals("70 5B", HexTool.toHexString(Arrays.copyOfRange(packet, 38, 40)), "Framing length"),
+                () -> assertEquals("02 80 00 02", HexTool.toHexString(Arrays.copyOfRange(packet, 111, 115)), "Sequence, options, universe"),
+                () -> assertEquals("70 0E", HexTool.toHexString(Arrays.copyOfRange(packet, 115, 117)), "DMP length"),
+                () -> assertEquals("00 04 00 11 22 33", HexTool.toHexString(Arrays.copyOfRange(packet, 123, 129)), "Count and data")
+        );
+    }
+
+    @Test
+    void shouldRejectInvalidArguments() {
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> new SACNFrame(0, 100, CID, "", false)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new SACNFrame(1, 201, CID, "", false)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new SACNFrame(1, 100, new byte[4], "", false)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new SACNFrame(1, 100, CID, "", true).update((byte) 0, new byte[0]))
+        );
+    }
+
+    @Test
+    void shouldDecodeReceivedDataPacketInPlace() {
+        var frame = new SACNFrame(300, 150, CID, "DMX512", false);
+        frame.update((byte) 7, SACNPacket.OPTION_PREVIEW_DATA, new byte[]{(byte) 0x11, (byte) 0x22, (byte) 0x33}, 3);
+        var received = Arrays.copyOf(frame.getArray(), 1024);
+        var length = frame.getLength();
+        assertAll(
+                () -> assertTrue(SACNPacket.isSACNDataPacket(received, length)),
+                () -> assertFalse(SACNPacket.isSACNDataPacket(received, SACNPacket.HEADER_LENGTH - 1)),
+                () -> assertEquals(300, SACNPacket.getUniverse(received)),
+                () -> assertEquals(150, SACNPacket.getPriority(received)),
+                () -> assertEquals(7, SACNPacket.getSequenceNumber(received)),
+                () -> assertEquals(SACNPacket.OPTION_PREVIEW_DATA, SACNPacket.getOptions(received)),
+                () -> assertEquals(3, SACNPacket.getDmxDataLength(received, length)),
+                () -> assertEquals(1, SACNPacket.getDmxDataLength(received, SACNPacket.HEADER_LENGTH + 1))
+        );
+    }
+
+    @Test
+    void shouldKeepSequenceNumberPerUniverse() {
+        var source = new SACNSource();
+        source.nextSequenceNumber(1);
+        source.nextSequenceNumber(1);
+        for (var i = 0; i < 256; i++) {
+            source.nextSequenceNumber(63999);
+        }
+        assertAll(
+                () -> assertEquals(2, source.nextSequenceNumber(1)),
+                () -> assertEquals(0, source.nextSequenceNumber(257), "Universe in another block"),
+                () -> assertEquals(0, source.nextSequenceNumber(63999), "Wraps after 255"),
+                () -> assertThrows(IllegalArgumentException.class, () -> source.nextSequenceNumber(64000))
+        );
+    }
+
+    @Test
+    void shouldHaveCachedMulticastAddressPerUniverse() {
+        assertAll(
+                () -> assertEquals("239.255.0.1", SACNPacket.getMulticastAddress(1).getHostAddress()),
+                () -> assertEquals("239.255.18.52", SACNPacket.getMulticastAddress(0x1234).getHostAddress()),
+                () -> assertSame(SACNPacket.getMulticastAddress(300), SACNPacket.getMulticastAddress(300)),
+                () -> assertThrows(IllegalArgumentException.class, () -> SACNPacket.getMulticastAddress(64000))
+        );
+    }
+}
@@ -0,0 +1,95 @@
+package be.codewriter.dmx512.controller.serial;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DMXSerialOutputManagerTest {
+
+    @Test
+    void shouldTakeOverTransmissionOfControllers() {
+        var manager = new DMXSerialOutputManager(44);
+        var controller1 = new DMXSerialController("not-existing-port-1");
+        var controller2 = new DMXSerialController("not-existing-port-2");
+
+        manager.add(controller1);
+        manager.start();
+        manager.add(controller2);
+        manager.add(controller2);
+
+        assertAll(
+                () -> assertTrue(manager.isRunning()),
+                () -> assertEquals(List.of(controller1, controller2), manager.getControllers()),
+                () -> assertTrue(controller1.isExternallyDriven()),
+                () -> assertTrue(controller2.isExternallyDriven())
+        );
+
+        manager.remove(controller1);
+        manager.stop();
+
+        assertAll(
+                () -> assertFalse(manager.isRunning()),
+                () -> assertEquals(List.of(controller2), manager.getControllers()),
+                () -> assertFalse(controller1.isExternallyDriven()),
+                () -> assertTrue(controller2.isExternallyDriven())
+        );
+    }
+
+    @Test
+    void shouldLimitFramesToMinimumSpacingOfController() throws InterruptedException {
+        var manager = new DMXSerialOutputManager(40, Thread.ofPlatform().daemon().factory());
+        var controller = new RecordingController();
+        // A spacing of 45ms at a tick of 25ms rounds up to every second tick
+        controller.setMinimumFrameSpacing(Duration.ofMillis(45));
+        manager.add(controller);
+        manager.start();
+        Thread.sleep(500);
+        manager.stop();
+
+        var sent = new ArrayList<>(controller.sent);
+        assertTrue(sent.size() >= 5 && sent.size() <= 11, "Sent " + sent.size() + " frames in 500ms");
+        for (var i = 1; i < sent.size(); i++) {
+            var interval = sent.get(i) - sent.get(i - 1);
+            assertTrue(interval >= TimeUnit.MILLISECONDS.toNanos(40), "Interval of " + interval + "ns");
+        }
+    }
+
+    @Test
+    void shouldValidateFrameRate() {
+        assertAll(
+                () -> assertEquals(TimeUnit.SECONDS.toNanos(1) / 40, new DMXSerialOutputManager(40).getFrameIntervalNanos()),
+                () -> assertThrows(IllegalArgumentException.class, () -> new DMXSerialOutputManager(0)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new DMXSerialOutputManager(1_000)),
+                () -> assertThrows(IllegalArgumentException.class, () -> new DMXSerialOutputManager(44, null))
+        );
+    }
+
+    private static class RecordingController extends DMXSerialController {
+        private final List<Long> sent = new CopyOnWriteArrayList<>();
+
+        private RecordingController() {
+            super("not-existing-port");
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        int transmitFrame() {
+            sent.add(System.nanoTime());
+            return MAX_DMX_CHANNELS;
+        }
+    }
+}
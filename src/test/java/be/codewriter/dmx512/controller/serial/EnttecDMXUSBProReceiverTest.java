@@ -0,0 +1,76 @@
+package be.codewriter.dmx512.controller.serial;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EnttecDMXUSBProReceiverTest {
+
+    private final AtomicInteger received = new AtomicInteger();
+    private final AtomicReference<EnttecWidgetParameters> parameters = new AtomicReference<>();
+    private final EnttecDMXUSBProReceiver receiver = new EnttecDMXUSBProReceiver(received::incrementAndGet, parameters::set);
+
+    @Test
+    void shouldReceiveDmxPacket() {
+        // Status, start code and 4 slots
+        feed(new byte[]{0x7E, 0x05, 0x06, 0x00, 0x00, 0x00, 0x0A, 0x0B, 0x0C, 0x0D, (byte) 0xE7});
+        // Shorter packet clears the slots which are no longer received
+        feed(new byte[]{0x7E, 0x05, 0x04, 0x00, 0x00, 0x00, 0x01, 0x02, (byte) 0xE7});
+
+        assertAll(
+                () -> assertEquals(2, received.get()),
+                () -> assertArrayEquals(new byte[]{0x01, 0x02}, receiver.getData())
+        );
+    }
+
+    @Test
+    void shouldIgnorePacketWithOtherStartCode() {
+        feed(new byte[]{0x7E, 0x05, 0x03, 0x00, 0x00, (byte) 0xCC, 0x01, (byte) 0xE7});
+
+        assertAll(
+                () -> assertEquals(0, received.get()),
+                () -> assertEquals(0, receiver.getData().length)
+        );
+    }
+
+    @Test
+    void shouldApplyChangesToImage() {
+        feed(new byte[]{0x7E, 0x05, 0x06, 0x00, 0x00, 0x00, 0x0A, 0x0B, 0x0C, 0x0D, (byte) 0xE7});
+        // Block 0, bits 2 and 4 changed: slot 2 and 4 (index 0 is the start code)
+        feed(new byte[]{0x7E, 0x09, 0x08, 0x00, 0x00, 0b0001_0100, 0x00, 0x00, 0x00, 0x00, 0x22, 0x44, (byte) 0xE7});
+        // Block 2, bit 0 changed: slot 16
+        feed(new byte[]{0x7E, 0x09, 0x07, 0x00, 0x02, 0x01, 0x00, 0x00, 0x00, 0x00, 0x16, (byte) 0xE7});
+
+        var data = receiver.getData();
+        assertAll(
+                () -> assertEquals(3, received.get()),
+                () -> assertEquals(16, data.length),
+                () -> assertEquals(0x0A, data[0]),
+                () -> assertEquals(0x22, data[1]),
+                () -> assertEquals(0x0C, data[2]),
+                () -> assertEquals(0x44, data[3]),
+                () -> assertEquals(0x16, data[15])
+        );
+    }
+
+    @Test
+    void shouldDecodeWidgetParameters() {
+        feed(new byte[]{0x7E, 0x03, 0x05, 0x00, 0x2C, 0x01, 0x09, 0x01, 0x28, (byte) 0xE7});
+
+        var result = parameters.get();
+        assertAll(
+                () -> assertEquals(new EnttecWidgetParameters(0x012C, 9, 1, 40), result),
+                () -> assertEquals(96.03, result.getBreakTimeMicros(), 0.001),
+                () -> assertEquals(10.67, result.getMabTimeMicros(), 0.001)
+        );
+    }
+
+    private void feed(byte[] data) {
+        receiver.feed(data, 0, data.length);
+    }
+}
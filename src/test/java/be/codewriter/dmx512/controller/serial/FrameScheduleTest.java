@@ -0,0 +1,56 @@
+package be.codewriter.dmx512.controller.serial;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameScheduleTest {
+    private static final long SPACING = TimeUnit.MICROSECONDS.toNanos(22_668);
+    private static final long REFRESH = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void shouldKeepSpacingBetweenQuickRenders() {
+        var schedule = new FrameSchedule(0);
+        schedule.sent(0, 0, SPACING, false);
+
+        // First render arrives while waiting for the refresh, after the spacing has passed
+        long firstRender = SPACING + SPACING / 2;
+        long firstDeadline = schedule.getDeadline(true, SPACING, REFRESH);
+        assertTrue(firstDeadline <= firstRender);
+        schedule.sent(firstRender, firstDeadline, SPACING, true);
+
+        // Second render arrives 5.4 ms later, it must wait for the spacing after the first send
+        long secondDeadline = schedule.getDeadline(true, SPACING, REFRESH);
+        assertAll(
+                () -> assertEquals(firstRender, schedule.getLastSent()),
+                () -> assertEquals(firstRender + SPACING, secondDeadline),
+                () -> assertEquals(firstRender + REFRESH, schedule.getDeadline(false, SPACING, REFRESH),
+                        "Refresh schedule restarts at the render")
+        );
+    }
+
+    @Test
+    void shouldKeepRefreshOnItsDeadlines() {
+        var schedule = new FrameSchedule(0);
+        schedule.sent(0, 0, SPACING, false);
+
+        long deadline = schedule.getDeadline(false, SPACING, REFRESH);
+        assertEquals(REFRESH, deadline);
+        // Sent slightly late, the next refresh stays on the schedule
+        schedule.sent(deadline + 100_000, deadline, SPACING, false);
+        assertAll(
+                () -> assertEquals(2 * REFRESH, schedule.getDeadline(false, SPACING, REFRESH)),
+                () -> assertEquals(deadline + 100_000 + SPACING, schedule.getDeadline(true, SPACING, REFRESH),
+                        "Spacing counts from the actual send")
+        );
+
+        // Missed by more than a frame, the missed refreshes are skipped
+        long missed = 2 * REFRESH + 3 * SPACING;
+        schedule.sent(missed, 2 * REFRESH, SPACING, false);
+        assertEquals(missed + REFRESH, schedule.getDeadline(false, SPACING, REFRESH));
+    }
+}
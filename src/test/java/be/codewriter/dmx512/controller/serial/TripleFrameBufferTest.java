@@ -0,0 +1,85 @@
+package be.codewriter.dmx512.controller.serial;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TripleFrameBufferTest {
+
+    @Test
+    void shouldTakeLatestFrame() {
+        var frames = new TripleFrameBuffer();
+        assertFalse(frames.take());
+
+        frames.publish(new byte[]{1, 2, 3}, 3);
+        frames.publish(new byte[]{4, 5}, 2);
+
+        assertAll(
+                () -> assertTrue(frames.hasNewFrame()),
+                () -> assertTrue(frames.take()),
+                () -> assertFalse(frames.hasNewFrame()),
+                () -> assertEquals(2, frames.getLength()),
+                () -> assertEquals(4, frames.getFrame()[0]),
+                () -> assertEquals(5, frames.getFrame()[1]),
+                () -> assertFalse(frames.take()),
+                () -> assertEquals(2, frames.getLength())
+        );
+    }
+
+    @Test
+    void shouldClearValuesOfLongerFrame() {
+        var frames = new TripleFrameBuffer();
+        var full = new byte[512];
+        Arrays.fill(full, (byte) 0xFF);
+
+        // Publish enough frames to reuse every buffer
+        for (var i = 0; i < 3; i++) {
+            frames.publish(full, 512);
+            frames.take();
+        }
+        frames.publish(new byte[]{1}, 1);
+        frames.take();
+
+        assertAll(
+                () -> assertEquals(1, frames.getLength()),
+                () -> assertEquals(1, frames.getFrame()[0]),
+                () -> assertEquals(0, frames.getFrame()[1]),
+                () -> assertEquals(0, frames.getFrame()[511])
+        );
+    }
+
+    @Test
+    void shouldOnlyHandOverCompleteFrames() throws InterruptedException {
+        var frames = new TripleFrameBuffer();
+        var error = new AtomicReference<String>();
+        var producer = new Thread(() -> {
+            var data = new byte[512];
+            for (var i = 0; i < 100_000; i++) {
+                Arrays.fill(data, (byte) i);
+                frames.publish(data, 512);
+            }
+        });
+        producer.start();
+
+        while (producer.isAlive() || frames.hasNewFrame()) {
+            if (frames.take()) {
+                var frame = frames.getFrame();
+                for (var value : frame) {
+                    if (value != frame[0]) {
+                        error.set("Torn frame with values " + frame[0] + " and " + value);
+                    }
+                }
+            }
+        }
+        producer.join();
+
+        assertNull(error.get());
+    }
+}
@@ -0,0 +1,276 @@
+package be.codewriter.dmx512.merge;
+
+import be.codewriter.dmx512.controller.DMXController;
+import be.codewriter.dmx512.controller.ip.DMXIPReceiver;
+import be.codewriter.dmx512.controller.ip.IPProtocol;
+import be.codewriter.dmx512.controller.ip.packet.SACNFrame;
+import be.codewriter.dmx512.controller.ip.packet.SACNPacket;
+import be.codewriter.dmx512.controller.ip.packet.SACNSource;
+import be.codewriter.dmx512.model.DMXUniverse;
+import org.junit.jupiter.api.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DMXMergeEngineTest {
+
+    @Test
+    void shouldMergeHighestValuePerSlot() {
+        var controller = new RecordingController();
+        var engine = new DMXMergeEngine(controller, MergeMode.HTP);
+        engine.submit(1, 3, 100, new byte[]{10, 50, (byte) 200});
+        engine.submit(2, 3, 100, new byte[]{20, 40});
+        engine.submit(2, 3, 100, new byte[]{20, 40});
+
+        assertAll(
+                () -> assertEquals(2, controller.frames.size(), "Unchanged merge isn't rendered"),
+                () -> assertArrayEquals(new byte[]{20, 50, (byte) 200}, controller.frames.getLast()),
+                () -> assertEquals(3, controller.universes.getLast()),
+                () -> assertEquals(2, engine.getSourceCount(3))
+        );
+    }
+
+    @Test
+    void shouldMergeLatestChangePerSlot() {
+        var controller = new RecordingController();
+        var engine = new DMXMergeEngine(controller, MergeMode.LTP);
+        engine.submit(1, 1, 100, new byte[]{10, 10});
+        engine.submit(2, 1, 100, new byte[]{5, 5});
+        engine.submit(1, 1, 100, new byte[]{10, 30});
+
+        assertAll(
+                () -> assertEquals(5, engine.getValue(1, 0), "Unchanged slot keeps the latest source"),
+                () -> assertEquals(30, engine.getValue(1, 1), "Changed slot takes over")
+        );
+    }
+
+    @Test
+    void shouldOnlyMergeSourcesWithHighestPriority() {
+        var controller = new RecordingController();
+        var engine = new DMXMergeEngine(controller, MergeMode.HTP);
+        engine.submit(1, 1, 100, new byte[]{(byte) 255});
+        engine.submit(2, 1, 150, new byte[]{10});
+        assertEquals(10, engine.getValue(1, 0), "Higher priority wins, even with a lower value");
+
+        engine.removeSource(2);
+        assertAll(
+                () -> assertEquals((byte) 255, engine.getValue(1, 0), "Lower priority takes over"),
+                () -> assertEquals(1, engine.getSourceCount(1))
+        );
+    }
+
+    @Test
+    void shouldExpireSourcesAfterTimeout() throws InterruptedException {
+        var controller = new RecordingController();
+        var engine = new DMXMergeEngine(controller, MergeMode.HTP, Duration.ofMillis(50), Duration.ofHours(1));
+        engine.submit(1, 1, 100, new byte[]{10, 10});
+        engine.submit(2, 1, 100, new byte[]{20});
+        Thread.sleep(100);
+        engine.submit(1, 1, 100, new byte[]{10, 10});
+
+        assertAll(
+                () -> assertEquals(1, engine.getSourceCount(1)),
+                () -> assertEquals(10, engine.getValue(1, 0)),
+                () -> assertArrayEquals(new byte[]{10, 10}, controller.frames.getLast())
+        );
+    }
+
+    @Test
+    void shouldKeepSourceSendingUnchangedFrames() throws InterruptedException {
+        var controller = new RecordingController();
+        var engine = new DMXMergeEngine(controller, MergeMode.HTP, Duration.ofMillis(50), Duration.ofHours(1));
+        var end = System.nanoTime() + Duration.ofMillis(200).toNanos();
+        while (System.nanoTime() < end) {
+            engine.submit(1, 1, 100, new byte[]{10, 10});
+            Thread.sleep(10);
+        }
+        engine.expireSources();
+
+        assertAll(
+                () -> assertEquals(1, engine.getSourceCount(1), "Unchanged frames keep the source active"),
+                () -> assertEquals(10, engine.getValue(1, 0)),
+                () -> assertEquals(1, controller.frames.size(), "Unchanged frames aren't rendered again")
+        );
+    }
+
+    @Test
+    void shouldMergeReceivedSourcesWithTheirPriority() throws Exception {
+        var controller = new RecordingController();
+        var engine = new DMXMergeEngine(controller, MergeMode.HTP, Duration.ofMillis(100), Duration.ofHours(1));
+        try (var receiver = new DMXIPReceiver(InetAddress.getLoopbackAddress(), -1, 0);
+             var sender = new DatagramSocket()) {
+            receiver.subscribeFrames(IPProtocol.SACN, 4, engine.createListener());
+            receiver.start();
+            var main = new SACNSource().createFrame(4, 150, false);
+            main.update((byte) 1, new byte[]{20});
+            var backup = new SACNSource().createFrame(4, 100, false);
+            backup.update((byte) 1, new byte[]{(byte) 255});
+
+            // Both consoles keep sending the same frame for longer than the source timeout
+            var end = System.nanoTime() + Duration.ofMillis(300).toNanos();
+            while (System.nanoTime() < end) {
+                for (var frame : new SACNFrame[]{main, backup}) {
+                    sender.send(new DatagramPacket(frame.getArray(), frame.getLength(),
+                            InetAddress.getLoopbackAddress(), receiver.getSACNPort()));
+                }
+                Thread.sleep(10);
+            }
+
+            assertAll(
+                    () -> assertEquals(2, engine.getSourceCount(4), "Each sender is a separate source"),
+                    () -> assertEquals(20, engine.getValue(4, 0), "Higher packet priority wins")
+            );
+        }
+    }
+
+    @Test
+    void shouldHandOverToBackupWhenSourceTerminates() throws Exception {
+        var controller = new RecordingController();
+        var engine = new DMXMergeEngine(controller, MergeMode.HTP);
+        try (var receiver = new DMXIPReceiver(InetAddress.getLoopbackAddress(), -1, 0);
+             var sender = new DatagramSocket()) {
+            receiver.subscribeFrames(IPProtocol.SACN, 5, engine.createListener());
+            receiver.start();
+            var main = new SACNSource().createFrame(5, 150, false);
+            main.update((byte) 1, new byte[]{20});
+            var backup = new SACNSource().createFrame(5, 100, false);
+            backup.update((byte) 1, new byte[]{(byte) 255});
+            for (var frame : new SACNFrame[]{main, backup}) {
+                sender.send(new DatagramPacket(frame.getArray(), frame.getLength(),
+                        InetAddress.getLoopbackAddress(), receiver.getSACNPort()));
+            }
+            waitFor(() -> engine.getSourceCount(5) == 2);
+            assertEquals(20, engine.getValue(5, 0));
+
+            main.update((byte) 2, SACNPacket.OPTION_STREAM_TERMINATED, new byte[]{20}, 1);
+            sender.send(new DatagramPacket(main.getArray(), main.getLength(),
+                    InetAddress.getLoopbackAddress(), receiver.getSACNPort()));
+            waitFor(() -> engine.getSourceCount(5) == 1);
+
+            assertAll(
+                    () -> assertEquals((byte) 255, engine.getValue(5, 0), "Backup takes over before the source timeout"),
+                    () -> assertArrayEquals(new byte[]{(byte) 255}, controller.frames.getLast())
+            );
+        }
+    }
+
+    @Test
+    void shouldRemoveSourceFromOneUniverse() {
+        var engine = new DMXMergeEngine(new RecordingController(), MergeMode.HTP);
+        engine.submit(1, 1, 150, new byte[]{10});
+        engine.submit(2, 1, 100, new byte[]{20});
+        engine.submit(1, 2, 100, new byte[]{30});
+        engine.removeSource(1, 1);
+
+        assertAll(
+                () -> assertEquals(20, engine.getValue(1, 0)),
+                () -> assertEquals(1, engine.getSourceCount(1)),
+                () -> assertEquals(1, engine.getSourceCount(2), "Other universes keep the source")
+        );
+    }
+
+    @Test
+    void shouldNotBlockSubmitWhileRendering() throws Exception {
+        var rendering = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        RecordingController controller = new RecordingController() {
+            @Override
+            public void render(int id, byte[] data) {
+                rendering.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.render(id, data);
+            }
+        };
+        var engine = new DMXMergeEngine(controller, MergeMode.HTP);
+        var renderer = new Thread(() -> engine.submit(1, 1, 100, new byte[]{10}));
+        renderer.start();
+        assertTrue(rendering.await(2, TimeUnit.SECONDS));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> engine.submit(1, 1, 100, new byte[]{20}),
+                "Submit doesn't wait for the slow output");
+        release.countDown();
+        renderer.join(2_000);
+
+        assertAll(
+                () -> assertEquals(2, controller.frames.size()),
+                () -> assertArrayEquals(new byte[]{20}, controller.frames.getLast(), "Latest merge is rendered after the slow render")
+        );
+    }
+
+    @Test
+    void shouldRejectInvalidArguments() {
+        var engine = new DMXMergeEngine(new RecordingController(), MergeMode.HTP);
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> engine.submit(1, 1, 201, new byte[1])),
+                () -> assertThrows(IllegalArgumentException.class, () -> engine.submit(1, 64000, 100, new byte[1])),
+                () -> assertThrows(IllegalArgumentException.class, () -> engine.submit(1, 1, 100, new byte[513])),
+                () -> assertThrows(IllegalArgumentException.class, () -> new DMXMergeEngine(null, MergeMode.LTP))
+        );
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        var end = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < end) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static class RecordingController implements DMXController {
+        private final List<byte[]> frames = new ArrayList<>();
+        private final List<Integer> universes = new ArrayList<>();
+
+        @Override
+        public DMXControllerType getType() {
+            return DMXControllerType.IP;
+        }
+
+        @Override
+        public String getProtocolName() {
+            return "TEST";
+        }
+
+        @Override
+        public String getAddress() {
+            return "test";
+        }
+
+        @Override
+        public boolean connect() {
+            return true;
+        }
+
+        @Override
+        public void render(DMXUniverse universe) {
+            render(universe.getId(), universe.getData());
+        }
+
+        @Override
+        public void render(int id, byte[] data) {
+            universes.add(id);
+            frames.add(data.clone());
+        }
+
+        @Override
+        public void close() {
+            // Nothing to close
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+    }
+}
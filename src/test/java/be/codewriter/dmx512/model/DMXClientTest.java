@@ -54,4 +54,17 @@ class DMXClientTest {
                 () -> assertFalse(client.hasChannel("rod"))
         );
     }
+
+    @Test
+    void mustChangeValueThroughChannelHandle() {
+        var otherClient = MotherObjects.fiveChannelClient((byte) 0, (byte) 0, (byte) 0, (byte) 0, (byte) 0);
+        var dimmer = otherClient.channel(" Dimmer");
+        dimmer.setValue((byte) 200);
+        assertAll(
+                () -> assertEquals(3, dimmer.index()),
+                () -> assertEquals((byte) 200, dimmer.getValue()),
+                () -> assertEquals((byte) 200, otherClient.getValue("dimmer")),
+                () -> assertThrows(IllegalArgumentException.class, () -> otherClient.channel("rod"))
+        );
+    }
 }
@@ -0,0 +1,82 @@
+package be.codewriter.dmx512.model;
+
+import be.codewriter.dmx512.MotherObjects;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DMXUniverseTest {
+
+    @Test
+    void shouldStoreClientValuesInFrame() {
+        var client = MotherObjects.fiveChannelClient((byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04, (byte) 0x05, 3);
+        var universe = new DMXUniverse(1, client);
+        client.setValue("green", (byte) 0x22);
+        var snapshot = universe.snapshot();
+        assertAll(
+                () -> assertEquals(7, universe.getLength()),
+                () -> assertEquals(512, snapshot.length),
+                () -> assertEquals((byte) 0x01, snapshot[2], "Red"),
+                () -> assertEquals((byte) 0x22, snapshot[3], "Green"),
+                () -> assertEquals((byte) 0x22, client.getValue("green"), "Green from client"),
+                () -> assertArrayEquals(new byte[]{0x01, 0x22, 0x03, 0x04, 0x05}, client.getData(), "Client data")
+        );
+    }
+
+    @Test
+    void shouldTrackChanges() {
+        var client = MotherObjects.fiveChannelClient((byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04, (byte) 0x05, 1);
+        var universe = new DMXUniverse(1, new ArrayList<>());
+        universe.addClient(client);
+        var initiallyDirty = universe.isDirty();
+        var first = universe.snapshot();
+        var cleanAfterSnapshot = !universe.isDirty();
+        var version = universe.getVersion();
+        client.setValue("red", (byte) 0x10);
+        var dirtyAfterChange = universe.isDirty();
+        var second = universe.snapshot();
+        assertAll(
+                () -> assertTrue(initiallyDirty, "Dirty when created"),
+                () -> assertTrue(cleanAfterSnapshot, "Clean after snapshot"),
+                () -> assertTrue(dirtyAfterChange, "Dirty after change"),
+                () -> assertEquals(version + 1, universe.getVersion(), "Version after change"),
+                () -> assertNotSame(first, second, "Double-buffered snapshots"),
+                () -> assertEquals((byte) 0x01, first[0], "Previous snapshot unchanged"),
+                () -> assertEquals((byte) 0x10, second[0], "New snapshot")
+        );
+    }
+
+    @Test
+    void shouldRejectClientInTwoUniverses() {
+        var client = MotherObjects.fiveChannelClient((byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04, (byte) 0x05, 1);
+        new DMXUniverse(1, client);
+        assertThrows(IllegalStateException.class, () -> new DMXUniverse(2, client));
+    }
+
+    @Test
+    void shouldUpdateChannelOnClientsByFixture() {
+        var client1 = MotherObjects.fiveChannelClient((byte) 0x01, (byte) 0x02, (byte) 0x03, (byte) 0x04, (byte) 0x05, 1);
+        var client2 = MotherObjects.nineChannelClient((byte) 0x11, (byte) 0x22, (byte) 0x33, (byte) 0x44, (byte) 0x55, (byte) 0x66, (byte) 0x77, (byte) 0x88, (byte) 0x99, 10);
+        var universe = new DMXUniverse(1, List.of(client1, client2));
+
+        universe.update("dimmer", (byte) 0xAA);
+        var afterUpdate = universe.getData();
+        universe.updateFixtures(client2.getFixture(), "Dimmer", (byte) 0xBB);
+        var afterFixtureUpdate = universe.getData();
+        var panGroup = universe.group("pan");
+        panGroup.setValue((byte) 0xCC);
+
+        assertAll(
+                () -> assertEquals((byte) 0xAA, afterUpdate[3], "Client 1 dimmer"),
+                () -> assertEquals((byte) 0xAA, afterUpdate[12], "Client 2 dimmer"),
+                () -> assertEquals((byte) 0xAA, afterFixtureUpdate[3], "Client 1 dimmer unchanged"),
+                () -> assertEquals((byte) 0xBB, afterFixtureUpdate[12], "Client 2 dimmer"),
+                () -> assertEquals(1, panGroup.size(), "Pan group"),
+                () -> assertEquals((byte) 0xCC, client2.getValue("pan"), "Client 2 pan"),
+                () -> assertEquals(0, universe.group(client1.getFixture(), "pan").size(), "No pan on client 1")
+        );
+    }
+}
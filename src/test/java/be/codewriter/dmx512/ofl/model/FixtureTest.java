@@ -4,6 +4,10 @@ import be.codewriter.dmx512.MotherObjects;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class FixtureTest {
@@ -28,6 +32,22 @@ class FixtureTest {
         );
     }
 
+    @Test
+    void mustBuildChannelIndexOncePerMode() {
+        var channels = new ArrayList<>(List.of("Red", "Green"));
+        channels.add(null);
+        var mode = new Mode("3-Channel", "3ch", channels);
+        channels.set(0, "Blue");
+        assertAll(
+                () -> assertSame(mode.getChannelIndexes(), mode.getChannelIndexes()),
+                () -> assertEquals(0, mode.getChannelIndex("red"), "Channels are copied"),
+                () -> assertEquals(-1, mode.getChannelIndex("blue")),
+                () -> assertEquals(Arrays.asList("Red", "Green", null), mode.channels()),
+                () -> assertEquals(new Mode("3-Channel", "3ch", Arrays.asList("Red", "Green", null)), mode),
+                () -> assertThrows(UnsupportedOperationException.class, () -> mode.channels().set(0, "Blue"))
+        );
+    }
+
     @Test
     void mustReturnCorrectMode() {
         assertAll(
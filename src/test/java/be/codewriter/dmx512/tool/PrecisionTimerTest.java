@@ -0,0 +1,50 @@
+package be.codewriter.dmx512.tool;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrecisionTimerTest {
+
+    @Test
+    void shouldWaitAtLeastTheDelay() {
+        var timer = new PrecisionTimer();
+        for (var delay : new long[]{8, 88, 500, 2_000}) {
+            long start = System.nanoTime();
+            timer.sleepMicros(delay);
+            long elapsed = System.nanoTime() - start;
+            assertTrue(elapsed >= TimeUnit.MICROSECONDS.toNanos(delay), "Waited " + elapsed + "ns for " + delay + "us");
+        }
+    }
+
+    @Test
+    void shouldRecordStatistics() {
+        var timer = new PrecisionTimer(TimeUnit.MICROSECONDS.toNanos(100));
+        timer.sleepMicros(50);
+        timer.sleepMicros(200);
+        timer.sleepMicros(0);
+
+        var statistics = timer.getStatistics();
+        assertAll(
+                () -> assertEquals(2, statistics.count()),
+                () -> assertTrue(statistics.averageJitterNanos() >= 0),
+                () -> assertTrue(statistics.maxJitterNanos() >= statistics.averageJitterNanos())
+        );
+
+        timer.resetStatistics();
+        assertEquals(new TimingStatistics(0, 0, 0), timer.getStatistics());
+    }
+
+    @Test
+    void shouldCalibrateSpinThreshold() {
+        assertAll(
+                () -> assertTrue(new PrecisionTimer().getSpinThresholdNanos() > 0),
+                () -> assertThrows(IllegalArgumentException.class, () -> new PrecisionTimer(-1))
+        );
+    }
+}